@@ -0,0 +1,109 @@
+package controllers;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+import models.Board;
+
+/** An instance builds the Boards of upcoming games on background threads,
+ * so that a game with a seed given in advance starts without waiting for its
+ * Board to be generated. At most a fixed number of Boards are built or held
+ * ahead of time; the seeds beyond that wait their turn, in order. */
+final class BoardPipeline {
+	/* The function that builds the Board with a given seed. It must build
+	 * the same Board for a seed on any thread. */
+	private final LongFunction<Board> build;
+
+	/* The most Boards that are being built or are built and not yet taken. */
+	private final int capacity;
+
+	/* The threads that build Boards, created when first needed. */
+	private ExecutorService workers;
+
+	/* The seeds offered and not yet started, in the order offered. */
+	private final ArrayDeque<Long> waiting= new ArrayDeque<Long>();
+
+	/* The Boards that are being built or are built and not yet taken, keyed
+	 * by seed; there are at most capacity. */
+	private final Map<Long, Future<Board>> ahead=
+		new HashMap<Long, Future<Board>>();
+
+	/** Constructor: a pipeline that builds Boards using build, holding at
+	 * most capacity of them ahead of time.
+	 * Precondition: capacity > 0. */
+	BoardPipeline(LongFunction<Board> build, int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity must be positive");
+		this.build= build;
+		this.capacity= capacity;
+	}
+
+	/** Build the Board with seed s in the background, after the seeds offered
+	 * before it, unless it is already waiting or being built. */
+	synchronized void offer(long s) {
+		if (!ahead.containsKey(s) && !waiting.contains(s)) {
+			waiting.add(s);
+			fill();
+		}
+	}
+
+	/** Return the Board with seed s: the one built in the background if s was
+	 * offered, waiting for it to be finished if need be, and otherwise one
+	 * built on this thread. A Board is returned by take only once, so two
+	 * games never share one. */
+	Board take(long s) {
+		Future<Board> f;
+		synchronized (this) {
+			waiting.remove(s);
+			f= ahead.remove(s);
+			fill();
+		}
+		if (f == null) return build.apply(s);
+
+		try {
+			return f.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			f.cancel(true);
+			return build.apply(s);
+		} catch (ExecutionException e) {
+			Throwable cause= e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new IllegalStateException("cannot build Board " + s, cause);
+		}
+	}
+
+	/** Start building waiting Boards, in order, until capacity are ahead. */
+	private void fill() {
+		while (ahead.size() < capacity && !waiting.isEmpty()) {
+			long s= waiting.remove();
+			ahead.put(s, workers().submit(() -> build.apply(s)));
+		}
+	}
+
+	/** Return the threads that build Boards, creating them if need be: one
+	 * per processor beyond the first (at least one, and at most capacity),
+	 * as daemons of low priority so that they neither slow the game being
+	 * played much nor keep the program running once it ends. */
+	private ExecutorService workers() {
+		if (workers == null) {
+			int n= Runtime.getRuntime().availableProcessors() - 1;
+			workers= Executors.newFixedThreadPool(
+				Math.max(1, Math.min(capacity, n)), r -> {
+					Thread t= new Thread(r, "BoardPipeline");
+					t.setDaemon(true);
+					t.setPriority(Thread.MIN_PRIORITY);
+					return t;
+				});
+		}
+		return workers;
+	}
+}
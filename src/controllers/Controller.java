@@ -27,4 +27,9 @@ public interface Controller {
 
     /** Create (but don't start) a new game with seed s. */
     public void newGame(long s);
+
+    /** Start building, in the background, the game with seed s, so that a
+     * later newGame(s) need not wait for it. Games are built in the order
+     * their seeds are given, a few at a time. */
+    public void pregenerate(long s);
 }
@@ -1,9 +1,12 @@
 package controllers;
 
+import java.io.File;
 import java.util.Random;
 import java.util.function.Supplier;
 
+import generation.HalfEdgeTriangulator;
 import models.Board;
+import models.BoardBuildStats;
 import models.Controllable.AbortException;
 import models.Controllable.SolutionFailedException;
 import models.PlanetXModel;
@@ -21,6 +24,34 @@ public class PlanetX implements Controller {
 	public static final int MAX_GEMS= 5000;
 	public static final int WIDTH= 4096;
 	public static final int HEIGHT= 4096;
+	public static final int LANDMARKS= 8;
+
+	/* The most Nodes and the largest side of a Board in large-galaxy mode.
+	 * Gems and scores are ints, which a ship can overflow on a Board of many
+	 * more Nodes. The outer Triangle of a triangulation reaches three times
+	 * the side, which must stay within the range of its exact arithmetic
+	 * (see generation.Predicates). */
+	public static final int MAX_GALAXY_NODES= 1 << 20;
+	public static final int MAX_SIZE= 1 << 26;
+
+	/* The bounds on the number of Nodes and the dimensions of the Boards of
+	 * this run: the ones above unless given on the command line. */
+	private static int minNodes= MIN_NODES, maxNodes= MAX_NODES;
+	private static int width= WIDTH, height= HEIGHT;
+
+	/* The order in which the Points of each Board are triangulated. Large
+	 * galaxies use BRIO, whose walks stay near each other in the mesh: on a
+	 * million Points it is about seven times as fast as the order in which
+	 * the Points are drawn, which the classroom Boards keep so that a seed
+	 * gives the same Board as before. */
+	private static HalfEdgeTriangulator.Order order=
+		HalfEdgeTriangulator.Order.INPUT;
+
+	/* The bytes of stack per Node of a large galaxy given to the thread
+	 * that runs the Spaceship, whose recursion may go about as deep as the
+	 * Board is large, and the stack size used (0: the JVM's default). */
+	private static final int STACK_PER_NODE= 1024;
+	private static long stackSize= 0;
 
 	protected long seed; // The seed used to generate this game.
 	protected Spaceship spaceship; // The solution implementing this game. 
@@ -33,9 +64,20 @@ public class PlanetX implements Controller {
 
 	private static final Random RNG= new Random(); // used for random seed generation.
 
+	/* The directory of Board snapshots (see Board.BoardBuilder.snapshots);
+	 * null if Boards are always generated. */
+	private static File snapshots;
+
 	/* A Spaceship supplier used to get new Spaceships (e.g. for restarting). */
 	private static Supplier<Spaceship> ships;
 
+	/* The most Boards of upcoming games that are built ahead of time. */
+	private static final int PREGENERATED= 2;
+
+	/* The Boards of games to come, built in the background. */
+	private final BoardPipeline boards=
+		new BoardPipeline(PlanetX::board, PREGENERATED);
+
 	/* Separate thread used to prevent the model from blocking the view */
 	protected ModelThread thread;
 
@@ -66,13 +108,19 @@ public class PlanetX implements Controller {
 
 		seed= s;
 		spaceship= sp;
-		Board b= new Board.BoardBuilder().size(WIDTH, HEIGHT).seed(s)
-			.nodeBounds(MIN_NODES, MAX_NODES).gemBounds(MIN_GEMS, MAX_GEMS).build();
-		model= new PlanetXModel(b);
+		model= new PlanetXModel(boards.take(s));
 		thread= new ModelThread();
 		view.init(this, model);
 	}
 
+	/** Return a new Board for the game with seed s. */
+	private static Board board(long s) {
+		return new Board.BoardBuilder().size(width, height).seed(s)
+			.nodeBounds(minNodes, maxNodes).gemBounds(MIN_GEMS, MAX_GEMS)
+			.triangulator(new HalfEdgeTriangulator(order))
+			.landmarks(LANDMARKS).snapshots(snapshots).build();
+	}
+
 	@Override public void newGame(String str) {
 		if (str == null) return;
 		try {
@@ -86,6 +134,10 @@ public class PlanetX implements Controller {
 		init(s, ships.get());
 	}
 
+	@Override public void pregenerate(long s) {
+		boards.offer(s);
+	}
+
 	@Override public void reset() {
 		init(seed, ships.get());
 	}
@@ -120,6 +172,11 @@ public class PlanetX implements Controller {
 	/**  An instance runs a model in a separate thread.
 	 * It can be killed by calling kill(). */
 	protected class ModelThread extends Thread {
+		/** Constructor: a thread with a stack of stackSize bytes. */
+		public ModelThread() {
+			super(null, null, "ModelThread", stackSize);
+		}
+
 		/** Run through the game until it finishes, fails, or is aborted. */
 		@Override public void run() {
 			try {
@@ -171,6 +228,49 @@ public class PlanetX implements Controller {
 		return model.rescueSucceeded();
 	}
 
+	/** Build n Boards with seeds drawn from an RNG seeded with s, and print
+	 * the mean time and allocation of each stage of building them, and about
+	 * how much of the heap the last one holds. */
+	private static void printBuildStats(long s, int n) {
+		Random r= new Random(s);
+		BoardBuildStats stats= new BoardBuildStats();
+		Runtime rt= Runtime.getRuntime();
+		System.gc();
+		long before= rt.totalMemory() - rt.freeMemory();
+		Board b= null;
+		for (int i= 0; i != n; ++i) {
+			b= null; // so that only the last Board is held
+			// compute the values computed only when needed, to time them too
+			b= board(r.nextLong());
+			b.furthestNodeDistance();
+			b.distanceToTarget();
+			b.sumEdges();
+			stats.add(b.buildStats());
+		}
+		System.gc();
+		long held= rt.totalMemory() - rt.freeMemory() - before;
+		System.out.print(stats);
+		System.out.printf("heap held by the last Board (%d Nodes): %.1f MB"
+			+ " of %.1f MB%n", b.csr().nodeCount(), held / 1048576.0,
+			rt.maxMemory() / 1048576.0);
+	}
+
+	/** Return the side of a square Board on which n Nodes are as dense as
+	 * MAX_NODES Nodes are on a WIDTH x HEIGHT Board. */
+	private static int galaxySide(int n) {
+		double side= Math.sqrt((double) WIDTH * HEIGHT * n / MAX_NODES);
+		return (int) Math.min(MAX_SIZE, Math.ceil(side));
+	}
+
+	/** Return the pair of ints a,b in s, or a,a if s is a single int.
+	 * Throw a NumberFormatException if s is neither. */
+	private static int[] pair(String s) {
+		String[] parts= s.split(",", -1);
+		if (parts.length > 2) throw new NumberFormatException(s);
+		int a= Integer.parseInt(parts[0]);
+		return new int[] {a, parts.length == 1 ? a : Integer.parseInt(parts[1])};
+	}
+
 	/** Run PlanetX. Without any options, this defaults to an instance
 	 * with a random seed using a GUI view.
 	 * 
@@ -179,11 +279,27 @@ public class PlanetX implements Controller {
 	 * -c, --cli        Use the CLI (command-line interface) view
 	 * -b, --benchmark  Use a benchmark view, which will give statistics
 	 *                  of your solution when run on multiple seeds
-	 * -q, --quiet      Use a quiet view, which outputs nothing. */
+	 * -q, --quiet      Use a quiet view, which outputs nothing.
+	 * --snapshots=DIR  Read each Board from a snapshot in directory DIR if
+	 *                  there is one, and save a snapshot of it there if
+	 *                  not
+	 * --build-stats=N  Instead of playing, build N Boards with seeds drawn
+	 *                  from an RNG seeded with SEED, and print the mean time
+	 *                  and allocation of each stage of building them
+	 * --nodes=MIN,MAX  Give each Board between MIN and MAX Nodes (or
+	 *   --nodes=N      exactly N), up to MAX_GALAXY_NODES. Beyond
+	 *                  MAX_NODES, this is large-galaxy mode: unless --size
+	 *                  is given, the Board grows to keep the density of
+	 *                  Nodes, and planets get catalog names once the list of
+	 *                  names runs out
+	 * --size=W,H       Make each Board W x H (or S x S for --size=S), up to
+	 *                  MAX_SIZE on a side */
 	public static void main(String[] argv) {
 		// parse arguments
 		View view= null;
 		Long seed= null;
+		int statBoards= 0; // the number of Boards to build for --build-stats
+		boolean sized= false; // true iff --size was given
 		for (int i= 0; i < argv.length; ++i) {
 			try {
 				if (argv[i].equals("-g") || argv[i].equals("--gui")) {
@@ -221,6 +337,41 @@ public class PlanetX implements Controller {
 				} else if (argv[i].length() > 7
 					&& argv[i].substring(0, 7).equals("--seed=")) {
 					seed = Long.parseLong(argv[i].substring(7));
+				} else if (argv[i].startsWith("--build-stats=")) {
+					statBoards= Integer.parseInt(argv[i].substring(14));
+					if (statBoards <= 0) {
+						System.err.println("Error: --build-stats needs a positive"
+							+ " number of Boards");
+						return;
+					}
+				} else if (argv[i].startsWith("--nodes=")) {
+					int[] bounds= pair(argv[i].substring(8));
+					minNodes= bounds[0];
+					maxNodes= bounds[1];
+					if (minNodes < MIN_NODES || minNodes > maxNodes
+						|| maxNodes > MAX_GALAXY_NODES) {
+						System.err.println("Error: --nodes needs " + MIN_NODES
+							+ " <= MIN <= MAX <= " + MAX_GALAXY_NODES);
+						return;
+					}
+				} else if (argv[i].startsWith("--size=")) {
+					int[] size= pair(argv[i].substring(7));
+					width= size[0];
+					height= size[1];
+					sized= true;
+					if (Math.min(width, height) <= 0
+						|| Math.max(width, height) > MAX_SIZE) {
+						System.err.println("Error: --size needs 0 < W, H <= "
+							+ MAX_SIZE);
+						return;
+					}
+				} else if (argv[i].startsWith("--snapshots=")) {
+					snapshots= new File(argv[i].substring(12));
+					if (!snapshots.isDirectory() && !snapshots.mkdirs()) {
+						System.err.println("Error: cannot create directory \""
+							+ snapshots + '"');
+						return;
+					}
 				} else if (argv[i].equals("-s")) {
 					if (i + 1 < argv.length) {
 						++i;
@@ -234,12 +385,27 @@ public class PlanetX implements Controller {
 					return;
 				}
 			} catch (NumberFormatException e) {
-				System.err.println("Invalid seed \"" + argv[i] + '"');
+				System.err.println("Invalid number \"" + argv[i] + '"');
 				return;
 			}
 		}
 		if (seed == null)
 			seed = RNG.nextLong(); // avoid burning RNG; only generate if needed
+		if (maxNodes > MAX_NODES) {
+			order= HalfEdgeTriangulator.Order.BRIO;
+			stackSize= (long) STACK_PER_NODE * maxNodes;
+			if (!sized) width= height= galaxySide(maxNodes);
+		}
+		if ((long) (width + 1) * (height + 1) < maxNodes) {
+			System.err.println("Error: a " + width + " x " + height
+				+ " Board cannot hold " + maxNodes + " Nodes");
+			return;
+		}
+
+		if (statBoards > 0) {
+			printBuildStats(seed, statBoards);
+			return;
+		}
 
 		// begin the game with the appropriate parameters
 		if (view == null) view = new GUIView();
@@ -1,5 +1,7 @@
 package controllers;
 
+import models.AdjacencyArrays;
+import models.DistanceOracle;
 import models.Node;
 import java.util.Set;
 
@@ -23,6 +25,17 @@ public interface RescuePhase {
 	/** Return the set of all Nodes in the graph. */
 	public Set<Node> nodes();
 
+	/** Return the graph of all Nodes and Edges in compressed sparse row
+	 * form, which is fastest to search. Its Node ids are those of Nodes. */
+	public AdjacencyArrays graph();
+
+	/** Return distances between Nodes, by id, from precomputed landmarks,
+	 * or null if the Board was built without landmarks (see
+	 * Board.BoardBuilder.landmarks); graph() can then be searched instead.
+	 * Distances to and from Earth are exact and take constant time; bounds
+	 * on any other distance take time proportional to the few landmarks. */
+	public DistanceOracle distances();
+
 	/** Move the Ship to Node n.
 	 * An exception occurs if the ship's current planet is not adjacent to n. */
 	public void moveTo(Node n);
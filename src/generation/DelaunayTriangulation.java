@@ -1,41 +1,105 @@
 package generation;
 
 import java.awt.Point;
+import java.nio.BufferOverflowException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Random;
 import java.util.Set;
 
-/** An instance creates a Delaunay triangulation represented by
- * immutable vertex and edge sets. */
+/** An instance creates a Delaunay triangulation represented by a
+ * read-only Mesh. Its vertices and edges, without the outer Triangle, are
+ * also available as read-only sets.
+ *
+ * After it is built, Points can be inserted and removed one at a time. The
+ * triangulation is repaired only around the Point, and each change reports
+ * the edges it added and removed. */
 public class DelaunayTriangulation {
-	/* The set of Points representing vertices in this triangulation */
+	/* The triangulation, including the outer Triangle */
+	private Mesh mesh;
+
+	/* The set of Points representing vertices in this triangulation; null
+	 * until needed */
 	private Set<Point> vertices;
 
-	/* The set of UEdges representing the final triangulation */
+	/* The set of UEdges representing the final triangulation; null until
+	 * needed */
 	private Set<UEdge> edges;
 
+	/* The Point of each vertex of mesh, which the UEdges join; null until
+	 * needed, and null for removed vertices */
+	private Point[] points;
+
+	/* The engine that inserts and removes Points; null until needed */
+	private HalfEdgeTriangulator editor;
+
+	/* The Voronoi diagram of mesh; null until needed and after changes */
+	private Voronoi voronoi;
+
 	/** Constructor: a Delaunay Triangulation with n Points, placed using RNG r,
 	 * where the Points are bound by a rectangle with lower-left point (0, 0)
 	 * parallel to the x- and y-axes with dimensions w x h. */
 	public DelaunayTriangulation(int n, Random r, int w, int h) {
-		Iterator<Point> iter= new Iterator<Point>() {
-			@Override public boolean hasNext() {
-				return vertices.size() < n;
-			}
+		this(n, r, w, h, new HalfEdgeTriangulator());
+	}
 
-			@Override public Point next() {
-				return new Point(r.nextInt(w + 1), r.nextInt(h + 1));
-			}
-		};
-		triangulate(iter, new Point(0, 0), new Point(w, h));
+	/** Constructor: a Delaunay Triangulation with n Points, placed using RNG r,
+	 * where the Points are bound by a rectangle with lower-left point (0, 0)
+	 * parallel to the x- and y-axes with dimensions w x h. The triangulation
+	 * is computed by engine. */
+	public DelaunayTriangulation(int n, Random r, int w, int h,
+		Triangulator engine) {
+		this(n, r, w, h, engine, PointSource.UNIFORM);
+	}
+
+	/** Constructor: a Delaunay Triangulation with n distinct Points, placed by
+	 * source using RNG r, where the Points are bound by a rectangle with
+	 * lower-left point (0, 0) parallel to the x- and y-axes with dimensions
+	 * w x h. The triangulation is computed by engine.
+	 * Precondition: the rectangle holds at least n points with integer
+	 * coordinates. */
+	public DelaunayTriangulation(int n, Random r, int w, int h,
+		Triangulator engine, PointSource source) {
+		// the Points are read once, so a heap buffer does: a direct one
+		// costs far more to allocate and is freed only by a later GC
+		IntBuffer xy= source.place(n, r, w, h, IntBuffer.allocate(2 * n));
+		triangulate(points(xy), new Point(0, 0), new Point(w, h), n, engine);
+	}
+
+	/** Constructor: a Delaunay triangulation built by engine from the Points
+	 * (x1, y1), (x2, y2), ... in xy from its position to its limit, which may
+	 * be a direct or memory-mapped buffer. xy is left unchanged. Only a
+	 * Point at a time is made from it, so the Points need not fit in the
+	 * heap at once.
+	 * Precondition: xy has an even number of ints remaining. */
+	public DelaunayTriangulation(IntBuffer xy, Triangulator engine) {
+		int t= Integer.MIN_VALUE, r = Integer.MIN_VALUE;
+		int b= Integer.MAX_VALUE, l = Integer.MAX_VALUE;
+		for (int i= xy.position(); i < xy.limit(); i += 2) {
+			r= Math.max(r, xy.get(i));
+			l= Math.min(l, xy.get(i));
+			t= Math.max(t, xy.get(i + 1));
+			b= Math.min(b, xy.get(i + 1));
+		}
+
+		triangulate(points(xy.duplicate()), new Point(l, b), new Point(r, t),
+			xy.remaining() / 2, engine);
 	}
 
 	/** Constructor: a Delaunay triangulation built from the Points
 	 * in pts. */
 	public DelaunayTriangulation(Collection<Point> pts) {
+		this(pts, new HalfEdgeTriangulator());
+	}
+
+	/** Constructor: a Delaunay triangulation built from the Points
+	 * in pts by engine. */
+	public DelaunayTriangulation(Collection<Point> pts, Triangulator engine) {
 		// The max Y, max X, min Y, min X values
 		int t= Integer.MIN_VALUE, r = Integer.MIN_VALUE;
 		int b= Integer.MAX_VALUE, l = Integer.MAX_VALUE;
@@ -46,67 +110,202 @@ public class DelaunayTriangulation {
 			if (p.y < b) b= p.y;
 		}
 
-		triangulate(pts.iterator(), new Point(l, b), new Point(r, t));
+		triangulate(pts.iterator(), new Point(l, b), new Point(r, t),
+			pts.size(), engine);
 	}
 
 	/** Constructor: a Delaunay triangulation built from Points in iterator pts
 	 * bound in the axis-aligned rectangle with bottom-left coordinate bl and
 	 * top-right coordinate tr. Points outside of this area are omitted. */
 	public DelaunayTriangulation(Iterator<Point> pts, Point bl, Point tr) {
-		triangulate(pts, bl, tr);
+		this(pts, bl, tr, new HalfEdgeTriangulator());
 	}
 
-	/** Use iterator pts to make a Delaunay triangulation within the
-	 * axis-aligned rectangle with bottom-left coordinate bl and top-right
-	 * coordinate tr. Points outside this area are omitted. */
-	private void triangulate(Iterator<Point> pts, Point bl, Point tr) {
-		vertices= new HashSet<Point>();
+	/** Constructor: a Delaunay triangulation built by engine from Points in
+	 * iterator pts bound in the axis-aligned rectangle with bottom-left
+	 * coordinate bl and top-right coordinate tr. Points outside of this area
+	 * are omitted. */
+	public DelaunayTriangulation(Iterator<Point> pts, Point bl, Point tr,
+		Triangulator engine) {
+		triangulate(pts, bl, tr, 0, engine);
+	}
 
-		/* Triangulation set: set of all final Triangles */
-		HashSet<Triangle> triangles= new HashSet<Triangle>();
+	/** Return an iterator over the Points (x1, y1), (x2, y2), ... that
+	 * remain in xy, reading them as it goes. */
+	private static Iterator<Point> points(IntBuffer xy) {
+		return new Iterator<Point>() {
+			@Override public boolean hasNext() {
+				return xy.remaining() >= 2;
+			}
 
+			@Override public Point next() {
+				return new Point(xy.get(), xy.get());
+			}
+		};
+	}
+
+	/** Use iterator pts and engine to make a Delaunay triangulation within
+	 * the axis-aligned rectangle with bottom-left coordinate bl and top-right
+	 * coordinate tr. n is the expected number of Points, or 0 if unknown.
+	 * Points outside this area are omitted. */
+	private void triangulate(Iterator<Point> pts, Point bl, Point tr, int n,
+		Triangulator engine) {
 		/* set up initial Triangle - these TEMPORARY points allow the
 		 * triangulation to span the entire graph */
 		int OUTER_BOUND= Math.max(tr.x - bl.x, tr.y - bl.y);
 		Point p1= new Point(-OUTER_BOUND + bl.x, -OUTER_BOUND + bl.y);
 		Point p2= new Point(-OUTER_BOUND + bl.x, 3 * OUTER_BOUND + bl.y);
 		Point p3= new Point(3 * OUTER_BOUND + bl.x, -OUTER_BOUND + bl.y);
-		Triangle outer= new Triangle(p1, p2, p3);
-		triangles.add(outer);
-
-		// add Points until none are left
-		while (pts.hasNext()) {
-			Point p= pts.next();
-			if (outer.addPoint(p, triangles))
-				vertices.add(p);
+
+		mesh= new Mesh(new Point[] { p1, p2, p3 }, n);
+		engine.triangulate(pts, n, mesh);
+	}
+
+	/** Return this triangulation as a read-only Mesh, including the outer
+	 * Triangle. */
+	public Mesh mesh() {
+		return mesh;
+	}
+
+	/** Return the Voronoi diagram of the vertices of this triangulation,
+	 * which stays the same after later insertions and removals. */
+	public Voronoi voronoi() {
+		if (voronoi == null) voronoi= new Voronoi(mesh);
+		return voronoi;
+	}
+
+	/** Return the number of edges of this triangulation, leaving out the
+	 * edges to the outer Triangle. */
+	public int edgeCount() {
+		int k= 0;
+		for (int e= 0; e != mesh.halfEdgeCount(); ++e) {
+			if (isEdge(e)) ++k;
 		}
+		return k;
+	}
 
-		// remove the bounding Triangle from the triangulation set
-		triangles.remove(outer);
+	/** Put the coordinates x, y of each vertex of mesh() from Mesh.OUTER up
+	 * into dst at its position, so that vertex v is at 2 (v - Mesh.OUTER),
+	 * and advance the position past them. A removed vertex keeps its place
+	 * and last coordinates. dst may be a direct or memory-mapped buffer.
+	 * Throw a BufferOverflowException (changing nothing) if dst has fewer
+	 * than 2 (mesh().vertexCount() - Mesh.OUTER) ints remaining. */
+	public void writeVertices(IntBuffer dst) {
+		int n= mesh.vertexCount() - Mesh.OUTER;
+		if (dst.remaining() < 2 * n) throw new BufferOverflowException();
+		for (int v= Mesh.OUTER; v != mesh.vertexCount(); ++v)
+			dst.put(mesh.x(v)).put(mesh.y(v));
+	}
 
-		edges= allUndirectedEdges(triangles);
+	/** Put each of the edgeCount() edges of this triangulation into dst at
+	 * its position, as the places a, b (with a < b) of its ends in
+	 * writeVertices, and advance the position past them. dst may be a direct
+	 * or memory-mapped buffer. Throw a BufferOverflowException (changing
+	 * nothing) if dst has fewer than 2 edgeCount() ints remaining. */
+	public void writeEdges(IntBuffer dst) {
+		if (dst.remaining() < 2 * edgeCount())
+			throw new BufferOverflowException();
+		for (int e= 0; e != mesh.halfEdgeCount(); ++e) {
+			if (isEdge(e)) {
+				dst.put(mesh.origin(e) - Mesh.OUTER)
+					.put(mesh.dest(e) - Mesh.OUTER);
+			}
+		}
+	}
 
-		// remove any edges to the bounding Triangle
-		edges.removeIf(
-			(UEdge e) -> e.contains(p1) || e.contains(p2) || e.contains(p3));
+	/** Return true iff half-edge e of mesh is the half of an edge that
+	 * represents it: the one that starts at the lower vertex, where neither
+	 * end is a vertex of the outer Triangle. */
+	private boolean isEdge(int e) {
+		int a= mesh.origin(e), b= mesh.dest(e);
+		return a < b && !Mesh.isOuter(a);
 	}
 
-	/** Return this triangulation's immutable vertex set. */
+	/** Return this triangulation's read-only vertex set, which iterates in
+	 * the order of the vertices of mesh(). It reflects later insertions and
+	 * removals. */
 	public Set<Point> getVertices() {
+		if (vertices == null) toSets();
 		return Collections.unmodifiableSet(vertices);
 	}
 
-	/** Return this triangulation's immutable edge set. */
+	/** Return this triangulation's read-only edge set. It reflects later
+	 * insertions and removals. */
 	public Set<UEdge> getEdges() {
+		if (edges == null) toSets();
 		return Collections.unmodifiableSet(edges);
 	}
 
-	/** Return a set of all unique edges in the triangulation set ts.
-	 * Edges are represented as UEdges to avoid redundancy. */
-	private static Set<UEdge> allUndirectedEdges(HashSet<Triangle> ts) {
-		HashSet<UEdge> edges= new HashSet<UEdge>();
-		for (Triangle t : ts)
-			t.addUEdgesToSet(edges);
-		return edges;
+	/** Build the vertex and edge sets from mesh, leaving out the outer
+	 * Triangle and the edges to it. */
+	private void toSets() {
+		points= new Point[mesh.vertexCount()];
+		vertices= new LinkedHashSet<Point>();
+		for (int v= Mesh.OUTER; v != points.length; ++v) {
+			points[v]= new Point(mesh.x(v), mesh.y(v));
+			vertices.add(points[v]);
+		}
+
+		edges= new HashSet<UEdge>();
+		for (int e= 0; e != mesh.halfEdgeCount(); ++e) {
+			int a= mesh.origin(e), b= mesh.dest(e);
+			if (a < b && !Mesh.isOuter(a))
+				edges.add(new UEdge(points[a], points[b]));
+		}
+	}
+
+	/** Insert p into this triangulation and return the resulting change, or
+	 * return null (changing nothing) if p is already a vertex or lies
+	 * outside of the outer Triangle. */
+	public EdgeDelta insertPoint(Point p) {
+		if (edges == null) toSets();
+		if (editor == null) editor= new HalfEdgeTriangulator();
+		LongHashSet added= new LongHashSet(8), removed= new LongHashSet(8);
+		int v= editor.insertVertex(mesh, p.x, p.y, added, removed);
+		if (v == -1) return null;
+
+		voronoi= null;
+		if (v >= points.length)
+			points= Arrays.copyOf(points, 2 * v);
+		points[v]= new Point(p.x, p.y);
+		vertices.add(points[v]);
+		return apply(points[v], added, removed);
+	}
+
+	/** Remove p from this triangulation and return the resulting change, or
+	 * return null (changing nothing) if p is not a vertex. */
+	public EdgeDelta removePoint(Point p) {
+		if (edges == null) toSets();
+		if (editor == null) editor= new HalfEdgeTriangulator();
+		LongHashSet added= new LongHashSet(8), removed= new LongHashSet(8);
+		int v= editor.removeVertex(mesh, p.x, p.y, added, removed);
+		if (v == -1) return null;
+
+		voronoi= null;
+		EdgeDelta d= apply(points[v], added, removed);
+		vertices.remove(points[v]);
+		points[v]= null;
+		return d;
+	}
+
+	/** Update edges with the edges added and removed by a change to Point p,
+	 * given as keys of pairs of vertices, and return the change. */
+	private EdgeDelta apply(Point p, LongHashSet added, LongHashSet removed) {
+		Set<UEdge> in= toUEdges(added), out= toUEdges(removed);
+		edges.removeAll(out);
+		edges.addAll(in);
+		return new EdgeDelta(p, in, out);
+	}
+
+	/** Return the UEdges of the edges in keys that do not touch the outer
+	 * Triangle. */
+	private Set<UEdge> toUEdges(LongHashSet keys) {
+		Set<UEdge> s= new HashSet<UEdge>();
+		for (long k : keys.toArray()) {
+			int a= (int) (k >>> 32), b= (int) k;
+			if (!Mesh.isOuter(a))
+				s.add(new UEdge(points[a], points[b]));
+		}
+		return s;
 	}
 }
@@ -0,0 +1,289 @@
+package generation;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** An instance triangulates with the divide-and-conquer algorithm of Guibas
+ * and Stolfi (1985) on a quad-edge structure: the Points are sorted by x,
+ * split in half, each half is triangulated recursively, and the halves are
+ * merged along their common tangent. It takes O(n log n) time regardless of
+ * the order or distribution of the Points.
+ *
+ * Given a ForkJoinPool, an instance triangulates the two halves of each
+ * large slab of Points in parallel. Halves are merged in the same order
+ * either way, so the result is the same Mesh, triangle for triangle, as
+ * that of the sequential engine. */
+public class DivideAndConquerTriangulator implements Triangulator {
+	/* Slabs with fewer Points than this are triangulated sequentially. */
+	private static final int PARALLEL_CUTOFF= 1 << 14;
+
+	/* The pool on which slabs are triangulated; null if sequential. */
+	private final ForkJoinPool pool;
+
+	/** Constructor: an engine that triangulates on the calling thread. */
+	public DivideAndConquerTriangulator() {
+		this(null);
+	}
+
+	/** Constructor: an engine that triangulates slabs of Points in parallel
+	 * on pool, or on the calling thread if pool is null. */
+	public DivideAndConquerTriangulator(ForkJoinPool pool) {
+		this.pool= pool;
+	}
+
+	/** Return the name of this engine, which builds the same Mesh with or
+	 * without a pool. */
+	@Override public String toString() {
+		return "divide-and-conquer";
+	}
+
+	@Override public void triangulate(Iterator<Point> pts, int n, Mesh mesh) {
+		// gather the distinct Points inside the outer triangle, as the
+		// incremental engines would have accepted them
+		LongHashSet seen= new LongHashSet(n + Mesh.OUTER);
+		for (int v= 0; v != Mesh.OUTER; ++v)
+			seen.add(LongHashSet.pack(mesh.x(v), mesh.y(v)));
+		boolean ccw= orient(mesh, 0, 1, 2) > 0;
+		while (pts.hasNext()) {
+			Point p= pts.next();
+			if (inside(mesh, p, ccw) && seen.add(LongHashSet.pack(p.x, p.y)))
+				mesh.addVertex(p.x, p.y);
+		}
+
+		// sort the vertices by x, then y
+		Integer[] order= new Integer[mesh.vertexCount()];
+		for (int v= 0; v != order.length; ++v)
+			order[v]= v;
+		Arrays.parallelSort(order, (Integer a, Integer b) ->
+			mesh.x(a) != mesh.x(b) ? Integer.compare(mesh.x(a), mesh.x(b))
+				: Integer.compare(mesh.y(a), mesh.y(b)));
+		int[] s= new int[order.length];
+		for (int i= 0; i != s.length; ++i)
+			s[i]= order[i];
+
+		Slab all= new Slab(mesh, s, 0, s.length);
+		if (pool == null || s.length < PARALLEL_CUTOFF) all.compute();
+		else pool.invoke(all);
+
+		// copy each counterclockwise triangular face into mesh; the only
+		// other face is outside of the outer triangle
+		mesh.clearTriangles();
+		for (QuadEdge q : all.edges) {
+			if (q.isDeleted()) continue;
+			for (QuadEdge e : new QuadEdge[] { q, q.sym() }) {
+				QuadEdge f= e.lNext(), g= f.lNext();
+				if (e.halfEdge() == -1
+					&& orient(mesh, e.orig(), f.orig(), g.orig()) > 0) {
+					int h= mesh.addTriangle(e.orig(), f.orig(), g.orig());
+					e.setHalfEdge(h);
+					f.setHalfEdge(h + 1);
+					g.setHalfEdge(h + 2);
+				}
+			}
+		}
+
+		// pair the two half-edges of each edge inside the outer triangle
+		for (QuadEdge q : all.edges) {
+			int h= q.halfEdge(), t= q.sym().halfEdge();
+			if (!q.isDeleted() && h != -1 && t != -1) mesh.link(h, t);
+		}
+	}
+
+	/** Return true iff p lies inside of or on the outer triangle of m, whose
+	 * vertices are counterclockwise iff ccw. */
+	private static boolean inside(Mesh m, Point p, boolean ccw) {
+		for (int a= 0; a != Mesh.OUTER; ++a) {
+			int b= (a + 1) % Mesh.OUTER;
+			long o= Predicates.orient(m.x(a), m.y(a), m.x(b), m.y(b), p.x, p.y);
+			if (ccw ? o < 0 : o > 0) return false;
+		}
+		return true;
+	}
+
+	/** An instance triangulates the vertices s[lo..hi-1] of a Mesh, which are
+	 * sorted by x, then y. Afterward, edges holds every edge created, and
+	 * ldo and rdo are the counterclockwise convex hull edge out of the
+	 * leftmost vertex and the clockwise convex hull edge out of the rightmost
+	 * vertex. */
+	private static class Slab extends RecursiveAction {
+		private static final long serialVersionUID= 1L;
+
+		/* The Mesh whose vertices are triangulated. */
+		private final Mesh m;
+
+		/* The sorted vertices, and the bounds of this slab. */
+		private final int[] s;
+		private final int lo, hi;
+
+		/* Every edge created, including those since deleted. */
+		private List<QuadEdge> edges;
+
+		/* The hull edges at the leftmost and rightmost vertices. */
+		private QuadEdge ldo, rdo;
+
+		/** Constructor: a slab of the vertices s[lo..hi-1] of m.
+		 * Precondition: hi - lo >= 2. */
+		Slab(Mesh m, int[] s, int lo, int hi) {
+			this.m= m;
+			this.s= s;
+			this.lo= lo;
+			this.hi= hi;
+		}
+
+		/** Triangulate this slab, splitting large slabs into two that are
+		 * triangulated in parallel when running on a pool. */
+		@Override protected void compute() {
+			if (hi - lo < PARALLEL_CUTOFF || getPool() == null) {
+				edges= new ArrayList<QuadEdge>(3 * (hi - lo));
+				QuadEdge[] hull= delaunay(m, s, lo, hi, edges);
+				ldo= hull[0];
+				rdo= hull[1];
+				return;
+			}
+
+			int mid= (lo + hi) >>> 1;
+			Slab l= new Slab(m, s, lo, mid);
+			Slab r= new Slab(m, s, mid, hi);
+			invokeAll(l, r);
+
+			// keep the edges in the order the sequential engine creates them
+			edges= l.edges;
+			edges.addAll(r.edges);
+			QuadEdge[] hull= merge(m, l.ldo, l.rdo, r.ldo, r.rdo, edges);
+			ldo= hull[0];
+			rdo= hull[1];
+		}
+	}
+
+	/** Triangulate the vertices s[lo..hi-1] of m, adding every edge created
+	 * to all, and return { ldo, rdo }: the counterclockwise convex hull edge
+	 * out of the leftmost vertex and the clockwise convex hull edge out of
+	 * the rightmost vertex.
+	 *
+	 * Precondition: s[lo..hi-1] is sorted by x, then y, and hi - lo >= 2. */
+	private static QuadEdge[] delaunay(Mesh m, int[] s, int lo, int hi,
+		List<QuadEdge> all) {
+		if (hi - lo == 2) {
+			QuadEdge a= QuadEdge.makeEdge(s[lo], s[lo + 1]);
+			all.add(a);
+			return new QuadEdge[] { a, a.sym() };
+		}
+
+		if (hi - lo == 3) {
+			int s1= s[lo], s2= s[lo + 1], s3= s[lo + 2];
+			QuadEdge a= QuadEdge.makeEdge(s1, s2);
+			QuadEdge b= QuadEdge.makeEdge(s2, s3);
+			all.add(a);
+			all.add(b);
+			QuadEdge.splice(a.sym(), b);
+
+			// close the triangle, unless the three vertices are collinear
+			long o= orient(m, s1, s2, s3);
+			if (o > 0) {
+				all.add(QuadEdge.connect(b, a));
+				return new QuadEdge[] { a, b.sym() };
+			} else if (o < 0) {
+				QuadEdge c= QuadEdge.connect(b, a);
+				all.add(c);
+				return new QuadEdge[] { c.sym(), c };
+			}
+			return new QuadEdge[] { a, b.sym() };
+		}
+
+		int mid= (lo + hi) >>> 1;
+		QuadEdge[] l= delaunay(m, s, lo, mid, all);
+		QuadEdge[] r= delaunay(m, s, mid, hi, all);
+		return merge(m, l[0], l[1], r[0], r[1], all);
+	}
+
+	/** Merge the triangulation with hull edges ldo and ldi and the one to its
+	 * right with hull edges rdi and rdo, adding every edge created to all, and
+	 * return the hull edges { ldo, rdo } of the result. */
+	private static QuadEdge[] merge(Mesh m, QuadEdge ldo, QuadEdge ldi,
+		QuadEdge rdi, QuadEdge rdo, List<QuadEdge> all) {
+		// find the lower common tangent of the two halves
+		while (true) {
+			if (leftOf(m, rdi.orig(), ldi)) {
+				ldi= ldi.lNext();
+			} else if (rightOf(m, ldi.orig(), rdi)) {
+				rdi= rdi.rPrev();
+			} else {
+				break;
+			}
+		}
+
+		QuadEdge basel= QuadEdge.connect(rdi.sym(), ldi);
+		all.add(basel);
+		if (ldi.orig() == ldo.orig()) ldo= basel.sym();
+		if (rdi.orig() == rdo.orig()) rdo= basel;
+
+		// zip the halves together from the bottom up
+		while (true) {
+			QuadEdge lcand= basel.sym().oNext();
+			if (valid(m, lcand, basel)) {
+				while (inCircle(m, basel.dest(), basel.orig(), lcand.dest(),
+					lcand.oNext().dest())) {
+					QuadEdge t= lcand.oNext();
+					QuadEdge.delete(lcand);
+					lcand= t;
+				}
+			}
+
+			QuadEdge rcand= basel.oPrev();
+			if (valid(m, rcand, basel)) {
+				while (inCircle(m, basel.dest(), basel.orig(), rcand.dest(),
+					rcand.oPrev().dest())) {
+					QuadEdge t= rcand.oPrev();
+					QuadEdge.delete(rcand);
+					rcand= t;
+				}
+			}
+
+			boolean lValid= valid(m, lcand, basel);
+			boolean rValid= valid(m, rcand, basel);
+			if (!lValid && !rValid) break;
+
+			if (!lValid || (rValid && inCircle(m, lcand.dest(), lcand.orig(),
+				rcand.orig(), rcand.dest()))) {
+				basel= QuadEdge.connect(rcand, basel.sym());
+			} else {
+				basel= QuadEdge.connect(basel.sym(), lcand.sym());
+			}
+			all.add(basel);
+		}
+		return new QuadEdge[] { ldo, rdo };
+	}
+
+	/** Return true iff candidate edge e lies above base edge basel. */
+	private static boolean valid(Mesh m, QuadEdge e, QuadEdge basel) {
+		return rightOf(m, e.dest(), basel);
+	}
+
+	/** Return true iff vertex v is strictly right of edge e. */
+	private static boolean rightOf(Mesh m, int v, QuadEdge e) {
+		return orient(m, v, e.dest(), e.orig()) > 0;
+	}
+
+	/** Return true iff vertex v is strictly left of edge e. */
+	private static boolean leftOf(Mesh m, int v, QuadEdge e) {
+		return orient(m, v, e.orig(), e.dest()) > 0;
+	}
+
+	/** Return twice the signed area of triangle abc of vertices of m:
+	 * positive iff a, b, c are counterclockwise, 0 iff they are collinear. */
+	private static long orient(Mesh m, int a, int b, int c) {
+		return Predicates.orient(m.x(a), m.y(a), m.x(b), m.y(b), m.x(c), m.y(c));
+	}
+
+	/** Return true iff vertex d of m lies strictly inside the circle through
+	 * vertices a, b, c. Precondition: a, b, c are counterclockwise. */
+	private static boolean inCircle(Mesh m, int a, int b, int c, int d) {
+		return Predicates.inCircle(m.x(a), m.y(a), m.x(b), m.y(b), m.x(c),
+			m.y(c), m.x(d), m.y(d)) > 0;
+	}
+}
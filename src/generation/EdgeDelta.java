@@ -0,0 +1,42 @@
+package generation;
+
+import java.awt.Point;
+import java.util.Collections;
+import java.util.Set;
+
+/** An instance describes how the edges of a DelaunayTriangulation changed
+ * when one Point was inserted into or removed from it, so that structures
+ * built from the triangulation can be updated instead of rebuilt. Edges to
+ * the outer Triangle are left out, as they are from getEdges(). */
+public class EdgeDelta {
+	/* The Point inserted or removed. */
+	private final Point point;
+
+	/* The edges that are new, and those that no longer exist. */
+	private final Set<UEdge> added, removed;
+
+	/** Constructor: the change in which Point p was inserted or removed, the
+	 * edges in added were created, and the edges in removed were destroyed. */
+	EdgeDelta(Point p, Set<UEdge> added, Set<UEdge> removed) {
+		point= p;
+		this.added= Collections.unmodifiableSet(added);
+		this.removed= Collections.unmodifiableSet(removed);
+	}
+
+	/** Return the Point inserted or removed. It is the vertex of the
+	 * triangulation itself, so it is an endpoint of the UEdges of this
+	 * change. */
+	public Point point() {
+		return point;
+	}
+
+	/** Return the immutable set of edges that this change created. */
+	public Set<UEdge> added() {
+		return added;
+	}
+
+	/** Return the immutable set of edges that this change destroyed. */
+	public Set<UEdge> removed() {
+		return removed;
+	}
+}
@@ -0,0 +1,603 @@
+package generation;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+/** An instance triangulates by adding Points one at a time directly to the
+ * int arrays of a Mesh: it walks to the triangle on which each new Point
+ * lies, splits it (or the edge the Point lies on), and flips edges until
+ * the Delaunay condition holds again. Unlike IncrementalTriangulator, it
+ * creates no objects per Point or per triangle.
+ *
+ * Points may be inserted in the order given or in a spatially sorted Order,
+ * which keeps each walk short and the triangles being changed close together
+ * in memory. Vertices are numbered in the order given either way.
+ *
+ * An instance can also edit a finished Delaunay Mesh one vertex at a time,
+ * inserting or removing a vertex and repairing the triangulation around it
+ * while recording the edges added and removed. */
+public class HalfEdgeTriangulator implements Triangulator {
+
+	/* The order in which Points are inserted. */
+	private final Order order;
+
+	/* The mesh being built, and the stack of half-edges whose Delaunay
+	 * condition must be checked, each opposite the newest vertex. */
+	private Mesh mesh;
+	private int[] stack= new int[64];
+	private int top;
+
+	/* While editing, the edges added to and removed from the mesh, as keys
+	 * of pairs of vertices (see LongHashSet.edge); null while triangulating. */
+	private LongHashSet added, removed;
+
+	/* The Mesh last edited, and a grid over it from which walks to edits
+	 * start; null until the first edit. */
+	private Mesh edited;
+	private WalkGrid grid;
+
+	/** Constructor: an engine that inserts Points in the order given. */
+	public HalfEdgeTriangulator() {
+		this(Order.INPUT);
+	}
+
+	/** Constructor: an engine that inserts Points in order order. */
+	public HalfEdgeTriangulator(Order order) {
+		this.order= order;
+	}
+
+	/** Return the name of this engine and its order, e.g. "halfedge-BRIO". */
+	@Override public String toString() {
+		return "halfedge-" + order;
+	}
+
+	@Override public void triangulate(Iterator<Point> pts, int n, Mesh mesh) {
+		this.mesh= mesh;
+		if (order == Order.INPUT) {
+			WalkGrid grid= new WalkGrid(mesh, n);
+			while (pts.hasNext()) {
+				Point p= pts.next();
+				int e= locate(grid.near(p.x, p.y), p.x, p.y);
+				if (e != -1 && !isVertex(e, p.x, p.y))
+					grid.put(p.x, p.y, insert(e, mesh.addVertex(p.x, p.y)));
+			}
+		} else {
+			acceptAll(pts);
+			int e= 0;
+			for (int v : order.sort(mesh)) {
+				e= locate(e, mesh.x(v), mesh.y(v));
+				e= insert(e, v);
+			}
+		}
+		this.mesh= null;
+	}
+
+	/** Insert a vertex at (x, y) into Delaunay triangulation m, add the edges
+	 * created to added and those destroyed to removed (as keys of pairs of
+	 * vertices), and return the new vertex. Return -1 and leave m unchanged
+	 * if (x, y) is outside the outer Triangle or already a vertex. */
+	int insertVertex(Mesh m, int x, int y, LongHashSet added,
+		LongHashSet removed) {
+		int e= locate(m, x, y);
+		int v= -1;
+		if (e != -1 && !isVertex(e, x, y)) {
+			v= m.addVertex(x, y);
+			this.added= added;
+			this.removed= removed;
+			grid.put(x, y, insert(e, v));
+		}
+		end();
+		return v;
+	}
+
+	/** Remove the vertex at (x, y) from Delaunay triangulation m,
+	 * retriangulate the hole it leaves, add the edges created to added and
+	 * those destroyed to removed (as keys of pairs of vertices), and return
+	 * the vertex removed. Return -1 and leave m unchanged if no vertex other
+	 * than those of the outer Triangle is at (x, y). */
+	int removeVertex(Mesh m, int x, int y, LongHashSet added,
+		LongHashSet removed) {
+		int e= locate(m, x, y);
+		int v= -1;
+		for (int i= 0; e != -1 && i != 3; ++i, e= m.next(e)) {
+			int a= m.origin(e);
+			if (m.x(a) == x && m.y(a) == y && !Mesh.isOuter(a)) {
+				v= a;
+				this.added= added;
+				this.removed= removed;
+				remove(e, v);
+				break;
+			}
+		}
+		end();
+		return v;
+	}
+
+	/** Start an edit of m: return a half-edge of the triangle on which (x, y)
+	 * lies, or -1 if it is outside the outer Triangle. */
+	private int locate(Mesh m, int x, int y) {
+		mesh= m;
+		if (m != edited) {
+			edited= m;
+			grid= new WalkGrid(m, m.vertexCount() - Mesh.OUTER);
+			for (int e= 0; e != m.halfEdgeCount(); ++e)
+				grid.put(m.x(m.origin(e)), m.y(m.origin(e)), e);
+		}
+
+		// removing triangles renumbers others, so the grid may lead to a
+		// triangle other than the one remembered, or past the last one
+		int e= grid.near(x, y);
+		return locate(e < m.halfEdgeCount() ? e : 0, x, y);
+	}
+
+	/** Finish an edit. */
+	private void end() {
+		mesh= null;
+		added= null;
+		removed= null;
+	}
+
+	/** Add every Point of pts that lies inside of or on the outer Triangle
+	 * and is not yet a vertex to the mesh as a vertex, without triangulating
+	 * it. */
+	private void acceptAll(Iterator<Point> pts) {
+		Mesh m= mesh;
+		LongHashSet seen= new LongHashSet(m.vertexCount());
+		for (int v= 0; v != Mesh.OUTER; ++v)
+			seen.add(LongHashSet.pack(m.x(v), m.y(v)));
+
+		// the outer Triangle is the only triangle, with half-edges 0, 1, 2
+		while (pts.hasNext()) {
+			Point p= pts.next();
+			boolean inside= true;
+			for (int e= 0; e != 3; ++e) {
+				int a= m.origin(e), b= m.dest(e);
+				if (Predicates.orient(m.x(a), m.y(a), m.x(b), m.y(b), p.x, p.y) < 0)
+					inside= false;
+			}
+			if (inside && seen.add(LongHashSet.pack(p.x, p.y)))
+				m.addVertex(p.x, p.y);
+		}
+	}
+
+	/** Return a half-edge of the triangle on which (x, y) lies, found by
+	 * walking from the triangle of half-edge e, or -1 if (x, y) is outside
+	 * of the outer Triangle.
+	 *
+	 * Precondition: the mesh is a Delaunay triangulation, which guarantees
+	 * that the walk terminates. */
+	private int locate(int e, int x, int y) {
+		Mesh m= mesh;
+		int i= 0;
+		while (i != 3) {
+			int a= m.origin(e);
+			int b= m.dest(e);
+			if (Predicates.orient(m.x(a), m.y(a), m.x(b), m.y(b), x, y) < 0) {
+				// (x, y) is beyond e; step across it
+				e= m.twin(e);
+				if (e == -1) return -1;
+				i= 0;
+			}
+			e= m.next(e);
+			++i;
+		}
+		return e;
+	}
+
+	/** Return true iff (x, y) is a vertex of the triangle of half-edge e. */
+	private boolean isVertex(int e, int x, int y) {
+		Mesh m= mesh;
+		for (int i= 0; i != 3; ++i, e= m.next(e)) {
+			int a= m.origin(e);
+			if (m.x(a) == x && m.y(a) == y) return true;
+		}
+		return false;
+	}
+
+	/** Triangulate vertex p, which lies on the triangle of half-edge e but is
+	 * not one of its vertices, and restore the Delaunay condition. Return a
+	 * half-edge out of p. */
+	private int insert(int e, int p) {
+		Mesh m= mesh;
+		int x= m.x(p), y= m.y(p);
+		int on= -1; // the half-edge p lies on, if any
+		for (int i= 0; i != 3; ++i, e= m.next(e)) {
+			int a= m.origin(e);
+			int b= m.dest(e);
+			if (Predicates.orient(m.x(a), m.y(a), m.x(b), m.y(b), x, y) == 0)
+				on= e;
+		}
+
+		top= 0;
+		int out= on == -1 ? splitTriangle(e, p) : splitEdge(on, p);
+		while (top != 0)
+			legalize(stack[--top], p);
+		return out;
+	}
+
+	/** Split the triangle (a, b, c) of half-edge e = ab into three at new
+	 * vertex p, push the old edges for checking, and return a half-edge out
+	 * of p. */
+	private int splitTriangle(int e, int p) {
+		Mesh m= mesh;
+		int e1= m.next(e), e2= m.next(e1);
+		int a= m.origin(e), b= m.origin(e1), c= m.origin(e2);
+		int bc= m.twin(e1), ca= m.twin(e2);
+
+		// e becomes (a, b, p); g is (b, c, p) and h is (c, a, p)
+		m.setOrigin(e2, p);
+		int g= m.addTriangle(b, c, p);
+		int h= m.addTriangle(c, a, p);
+		m.link(g, bc);
+		m.link(h, ca);
+		m.link(e1, g + 2);
+		m.link(g + 1, h + 2);
+		m.link(h + 1, e2);
+		log(added, p, a);
+		log(added, p, b);
+		log(added, p, c);
+
+		push(e);
+		push(g);
+		push(h);
+		return e2;
+	}
+
+	/** Split half-edge e = ab, on which new vertex p lies, and the triangles
+	 * on either side of it in two each, push the old edges for checking,
+	 * and return a half-edge out of p. */
+	private int splitEdge(int e, int p) {
+		Mesh m= mesh;
+		int e1= m.next(e), e2= m.next(e1);
+		int a= m.origin(e), b= m.origin(e1), c= m.origin(e2);
+		int bc= m.twin(e1), f= m.twin(e);
+		log(removed, a, b);
+		log(added, p, a);
+		log(added, p, b);
+		log(added, p, c);
+
+		// e becomes (a, p, c) and g is (p, b, c)
+		m.setOrigin(e1, p);
+		int g= m.addTriangle(p, b, c);
+		m.link(g + 1, bc);
+		m.link(e1, g + 2);
+		push(e2);
+		push(g + 1);
+		if (f == -1) return e1;
+
+		// on the other side, f = ba becomes (b, p, d) and h is (p, a, d)
+		int f1= m.next(f), f2= m.next(f1);
+		int d= m.origin(f2);
+		int ad= m.twin(f1);
+		log(added, p, d);
+		m.setOrigin(f1, p);
+		int h= m.addTriangle(p, a, d);
+		m.link(h + 1, ad);
+		m.link(f1, h + 2);
+		m.link(e, h);
+		m.link(g, f);
+		push(f2);
+		push(h + 1);
+		return e1;
+	}
+
+	/** If the edge of half-edge e = ab, which is opposite new vertex p in
+	 * triangle (a, b, p), violates the Delaunay condition, flip it and push
+	 * the two edges that are then opposite p. */
+	private void legalize(int e, int p) {
+		Mesh m= mesh;
+		int f= m.twin(e);
+		if (f == -1) return;
+		int e1= m.next(e), e2= m.next(e1);
+		int f1= m.next(f), f2= m.next(f1);
+		int a= m.origin(e), b= m.origin(e1), d= m.origin(f2);
+		if (Predicates.inCircle(m.x(a), m.y(a), m.x(b), m.y(b), m.x(p), m.y(p),
+			m.x(d), m.y(d)) <= 0)
+			return;
+
+		// replace ab by pd: e becomes (d, p, a) and f becomes (p, d, b)
+		log(removed, a, b);
+		log(added, p, d);
+		int pb= m.twin(e1), ap= m.twin(e2);
+		int ad= m.twin(f1), db= m.twin(f2);
+		m.setOrigin(e, d);
+		m.setOrigin(e1, p);
+		m.setOrigin(e2, a);
+		m.setOrigin(f, p);
+		m.setOrigin(f1, d);
+		m.setOrigin(f2, b);
+		m.link(e, f);
+		m.link(e1, ap);
+		m.link(e2, ad);
+		m.link(f1, db);
+		m.link(f2, pb);
+		push(e2);
+		push(f1);
+	}
+
+	/** Remove vertex v, out of which half-edge e leads, from the mesh and
+	 * fill the hole it leaves with Delaunay triangles.
+	 *
+	 * The triangles around v are replaced by ears cut from the polygon around
+	 * them: each ear is a triangle of three consecutive corners whose circle
+	 * holds none of the polygon's corners. Such a triangle is a triangle of
+	 * the Delaunay triangulation without v, and one always exists. */
+	private void remove(int e, int v) {
+		Mesh m= mesh;
+
+		// turn clockwise to the first half-edge out of v, which has no twin if
+		// v lies on the boundary of the outer Triangle
+		int start= e;
+		while (m.twin(e) != -1 && m.next(m.twin(e)) != start)
+			e= m.next(m.twin(e));
+		boolean closed= m.twin(e) != -1;
+
+		// gather the triangles around v counterclockwise, and the corners
+		// of the polygon around them with the twin of each side
+		int k= 0;
+		for (int f= e; k == 0 || f != e && f != -1; f= m.twin(m.prev(f)))
+			++k;
+		int n= closed ? k : k + 1;
+		int[] corner= new int[n], side= new int[n], slot= new int[k];
+		for (int i= 0, f= e; i != k; ++i, f= m.twin(m.prev(f))) {
+			slot[i]= f - f % 3;
+			corner[i]= m.dest(f);
+			side[i]= m.twin(m.next(f));
+			log(removed, v, corner[i]);
+			if (i == k - 1 && !closed) {
+				corner[k]= m.origin(m.prev(f));
+				side[k]= -1;
+				log(removed, v, corner[k]);
+			}
+		}
+		// an open hole is closed by a new side on the boundary
+		if (!closed) log(added, corner[k], corner[0]);
+
+		// cut ears until a triangle is left, reusing the triangles of v
+		int[] prv= new int[n], nxt= new int[n];
+		for (int i= 0; i != n; ++i) {
+			prv[i]= (i + n - 1) % n;
+			nxt[i]= (i + 1) % n;
+		}
+		int used= 0;
+		int c= 0; // the corner being tried
+		for (int left= n, tried= 0; left != 3; ) {
+			int a= prv[c], b= nxt[c];
+			if (isEar(corner, corner[a], corner[c], corner[b])) {
+				int h= slot[used++];
+				setTriangle(h, corner[a], corner[c], corner[b]);
+				m.link(h, side[a]);
+				m.link(h + 1, side[c]);
+				side[a]= h + 2;
+				nxt[a]= b;
+				prv[b]= a;
+				log(added, corner[a], corner[b]);
+				--left;
+				tried= 0;
+				c= a;
+			} else if (++tried > left) {
+				throw new IllegalStateException("no Delaunay ear around vertex "
+					+ v);
+			} else {
+				c= b;
+			}
+		}
+		int h= slot[used++];
+		int a= prv[c], b= nxt[c];
+		setTriangle(h, corner[a], corner[c], corner[b]);
+		m.link(h, side[a]);
+		m.link(h + 1, side[c]);
+		m.link(h + 2, side[b]);
+
+		// drop the triangles left over, last first so that the ones moved
+		// into their places are never among them
+		Arrays.sort(slot, used, k);
+		for (int i= k - 1; i >= used; --i)
+			m.removeTriangle(slot[i]);
+		m.removeVertex(v);
+		grid.put(m.x(v), m.y(v), slot[0]);
+	}
+
+	/** Return true iff a, b, c are counterclockwise and no vertex of corner
+	 * lies strictly inside the circle through them. */
+	private boolean isEar(int[] corner, int a, int b, int c) {
+		Mesh m= mesh;
+		if (Predicates.orient(m.x(a), m.y(a), m.x(b), m.y(b), m.x(c),
+			m.y(c)) <= 0)
+			return false;
+		for (int d : corner) {
+			if (d != a && d != b && d != c && Predicates.inCircle(m.x(a),
+				m.y(a), m.x(b), m.y(b), m.x(c), m.y(c), m.x(d), m.y(d)) > 0)
+				return false;
+		}
+		return true;
+	}
+
+	/** Make the triangle of half-edge h = ab the triangle (a, b, c). */
+	private void setTriangle(int h, int a, int b, int c) {
+		Mesh m= mesh;
+		m.setOrigin(h, a);
+		m.setOrigin(m.next(h), b);
+		m.setOrigin(m.prev(h), c);
+	}
+
+	/** If log is not null, add the edge between vertices a and b to it. */
+	private static void log(LongHashSet log, int a, int b) {
+		if (log != null) log.add(LongHashSet.edge(a, b));
+	}
+
+	/** Push half-edge e onto the stack of half-edges to check. */
+	private void push(int e) {
+		if (top == stack.length)
+			stack= Arrays.copyOf(stack, 2 * top);
+		stack[top++]= e;
+	}
+
+	/** An instance names an order in which to insert Points. */
+	public enum Order {
+		/** The order given. */
+		INPUT,
+		/** The order of a Hilbert curve through the bounding box of the
+		 * Points, so that consecutive Points are near each other. */
+		HILBERT,
+		/** A biased randomized insertion order (Amenta, Choi, and Rote,
+		 * 2003): the Points are split into rounds that double in size, each
+		 * a random sample, and each round is sorted along a Hilbert curve. It
+		 * keeps the locality of HILBERT while guarding against inputs on
+		 * which a sorted order needs many flips per insertion. */
+		BRIO;
+
+		/* The Hilbert curve visits a grid of 2^ORDER x 2^ORDER cells. */
+		private static final int ORDER= 16;
+
+		/** Return the vertices of m other than its OUTER vertices, in this
+		 * order.
+		 * Precondition: this is not INPUT. */
+		int[] sort(Mesh m) {
+			int n= m.vertexCount() - Mesh.OUTER;
+			int l= Integer.MAX_VALUE, b= Integer.MAX_VALUE;
+			int r= Integer.MIN_VALUE, t= Integer.MIN_VALUE;
+			for (int v= Mesh.OUTER; v != m.vertexCount(); ++v) {
+				l= Math.min(l, m.x(v));
+				b= Math.min(b, m.y(v));
+				r= Math.max(r, m.x(v));
+				t= Math.max(t, m.y(v));
+			}
+			long side= Math.max(1, Math.max((long) r - l, (long) t - b) + 1);
+
+			// key: the Hilbert index of a vertex, then its number
+			long[] keys= new long[n];
+			for (int i= 0; i != n; ++i) {
+				int v= Mesh.OUTER + i;
+				int cx= (int) (((long) m.x(v) - l << ORDER) / side);
+				int cy= (int) (((long) m.y(v) - b << ORDER) / side);
+				keys[i]= hilbert(cx, cy) << 31 | v;
+			}
+
+			// BRIO: put each vertex in round k with probability 2^(k - rounds)
+			// (round 0 takes the rest), then sort within rounds
+			int[] start= new int[] { 0, n };
+			if (this == BRIO && n > 1) {
+				int rounds= 31 - Integer.numberOfLeadingZeros(n);
+				Random rnd= new Random(n);
+				int[] round= new int[n];
+				start= new int[rounds + 2];
+				for (int i= 0; i != n; ++i) {
+					int k= rounds;
+					while (k > 0 && rnd.nextBoolean())
+						--k;
+					round[i]= k;
+					++start[k + 1];
+				}
+				for (int k= 1; k != start.length; ++k)
+					start[k] += start[k - 1];
+				long[] byRound= new long[n];
+				int[] fill= Arrays.copyOf(start, start.length);
+				for (int i= 0; i != n; ++i)
+					byRound[fill[round[i]]++]= keys[i];
+				keys= byRound;
+			}
+
+			int[] vs= new int[n];
+			for (int k= 0; k + 1 != start.length; ++k) {
+				Arrays.sort(keys, start[k], start[k + 1]);
+				for (int i= start[k]; i != start[k + 1]; ++i)
+					vs[i]= (int) (keys[i] & Integer.MAX_VALUE);
+			}
+			return vs;
+		}
+
+		/** Return the index along the Hilbert curve of the cell (x, y).
+		 * Precondition: 0 <= x, y < 2^ORDER. */
+		private static long hilbert(int x, int y) {
+			long d= 0;
+			for (int s= 1 << ORDER - 1; s != 0; s >>>= 1) {
+				int rx= (x & s) != 0 ? 1 : 0;
+				int ry= (y & s) != 0 ? 1 : 0;
+				d += (long) s * s * ((3 * rx) ^ ry);
+
+				// rotate the quadrant so the curve is continuous
+				if (ry == 0) {
+					if (rx == 1) {
+						x= s - 1 - x;
+						y= s - 1 - y;
+					}
+					int tmp= x;
+					x= y;
+					y= tmp;
+				}
+			}
+			return d;
+		}
+	}
+
+	/** An instance is a coarse grid of buckets over the bounding box of the
+	 * outer Triangle. Each bucket remembers a half-edge out of the latest
+	 * vertex added within it, from which the walk to a new Point in that
+	 * bucket is short. Half-edges are never removed from a Mesh while it is
+	 * triangulated, so a remembered half-edge is always a valid place to
+	 * start a walk.
+	 *
+	 * After triangulation, a grid filled with every half-edge of the Mesh
+	 * locates the Points of later edits without the Mesh's history. */
+	private static class WalkGrid {
+		/* The number of buckets per row and per column. */
+		private final int size;
+
+		/* The bottom-left corner and dimensions of the bounding box. */
+		private final int x, y, w, h;
+
+		/* The remembered half-edges, row by row; -1 if none yet. */
+		private final int[] cells;
+
+		/* The half-edge remembered last, used for empty buckets. */
+		private int last;
+
+		/** Constructor: a grid over the bounding box of the outer Triangle of
+		 * m, sized for about n Points (n = 0 if unknown). */
+		public WalkGrid(Mesh m, int n) {
+			// about 8 Points per bucket once every Point has been added; the
+			// Points fill only the middle quarter of each side of the box
+			size= 4 * Math.max(1, (int) Math.sqrt(n > 0 ? n / 8 : 4096));
+			int l= Integer.MAX_VALUE, b= Integer.MAX_VALUE;
+			int r= Integer.MIN_VALUE, t= Integer.MIN_VALUE;
+			for (int v= 0; v != Mesh.OUTER; ++v) {
+				l= Math.min(l, m.x(v));
+				b= Math.min(b, m.y(v));
+				r= Math.max(r, m.x(v));
+				t= Math.max(t, m.y(v));
+			}
+			x= l;
+			y= b;
+			w= Math.max(1, r - l + 1);
+			h= Math.max(1, t - b + 1);
+			cells= new int[size * size];
+			Arrays.fill(cells, -1);
+			last= 0;
+		}
+
+		/** Return the index of the bucket containing (px, py), clamping it
+		 * into the bounding box. */
+		private int cell(int px, int py) {
+			int i= (int) ((long) (px - x) * size / w);
+			int j= (int) ((long) (py - y) * size / h);
+			i= Math.min(size - 1, Math.max(0, i));
+			j= Math.min(size - 1, Math.max(0, j));
+			return j * size + i;
+		}
+
+		/** Return a half-edge from whose triangle to walk to (px, py). */
+		public int near(int px, int py) {
+			int e= cells[cell(px, py)];
+			return e == -1 ? last : e;
+		}
+
+		/** Remember that half-edge e leaves (px, py). */
+		public void put(int px, int py, int e) {
+			cells[cell(px, py)]= e;
+			last= e;
+		}
+	}
+}
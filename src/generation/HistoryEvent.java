@@ -26,6 +26,11 @@ public class HistoryEvent {
 		this.ts = ts;
 	}
 
+	/** Return the first Triangle resulting from this event. */
+	public Triangle first() {
+		return ts[0];
+	}
+
 	/**
 	 * Returns a PointLocation for p based on the Triangles in this event.
 	 */
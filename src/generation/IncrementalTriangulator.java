@@ -0,0 +1,153 @@
+package generation;
+
+import java.awt.Point;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/** An instance triangulates by adding Points one at a time to a Triangle
+ * that spans the whole graph, splitting the innermost Triangle that contains
+ * each Point and flipping edges until the Delaunay condition holds again
+ * (see Triangle). */
+public class IncrementalTriangulator implements Triangulator {
+
+	/* The strategy used to find the innermost Triangle of a new Point. */
+	private final Locator loc;
+
+	/** Constructor: an engine that locates Points by walking across
+	 * neighboring Triangles. */
+	public IncrementalTriangulator() {
+		this(Locator.WALK);
+	}
+
+	/** Constructor: an engine that locates Points using loc. */
+	public IncrementalTriangulator(Locator loc) {
+		this.loc= loc;
+	}
+
+	/** Return the name of this engine and its Locator, e.g.
+	 * "incremental-WALK". */
+	@Override public String toString() {
+		return "incremental-" + loc;
+	}
+
+	@Override public void triangulate(Iterator<Point> pts, int n, Mesh mesh) {
+		// the vertex number of each Point in mesh
+		HashMap<Point, Integer> index= new HashMap<Point, Integer>();
+		Point[] outer= new Point[Mesh.OUTER];
+		for (int v= 0; v != Mesh.OUTER; ++v) {
+			outer[v]= new Point(mesh.x(v), mesh.y(v));
+			index.put(outer[v], v);
+		}
+
+		Triangle bound= new Triangle(outer[0], outer[1], outer[2]);
+		WalkGrid grid= loc == Locator.WALK ? new WalkGrid(outer, n, bound)
+			: null;
+
+		// walks start from the grid, which holds only recent Triangles, so
+		// without the outer Triangle the history behind them is garbage
+		if (grid != null) bound= null;
+
+		// add Points until none are left
+		while (pts.hasNext()) {
+			Point p= pts.next();
+			PointLocation pLoc= grid == null ? bound.locate(p)
+				: grid.near(p).walk(p);
+			if (Triangle.addPoint(pLoc, p)) {
+				index.put(p, mesh.addVertex(p.x, p.y));
+				if (grid != null) grid.put(p, pLoc.getTriangle());
+			}
+		}
+
+		// copy the final Triangles into mesh
+		mesh.clearTriangles();
+		Triangle t= grid == null ? bound.innermost() : grid.current();
+		t.copyTo(mesh, index);
+	}
+
+	/** An instance names a strategy for finding the innermost Triangle on
+	 * which each new Point lies. Both produce the same triangulation, since
+	 * Triangle locates Points with exact arithmetic. */
+	public enum Locator {
+		/** Descend the HistoryEvent DAG from the outer Triangle. Every
+		 * Triangle ever created stays reachable until triangulation ends. */
+		HISTORY,
+		/** Walk across neighboring Triangles, starting from a Triangle that
+		 * was split by an earlier Point in the same region of the plane.
+		 * Triangles that have been replaced are garbage once the grid no
+		 * longer leads to them. */
+		WALK;
+	}
+
+	/** An instance is a coarse grid of buckets over the bounding box of the
+	 * outer Triangle. Each bucket remembers a Triangle split by the latest
+	 * Point added within it, from which the walk to a new Point in that
+	 * bucket is short. */
+	private static class WalkGrid {
+		/* The number of buckets per row and per column. */
+		private final int size;
+
+		/* The bottom-left corner and dimensions of the bounding box. */
+		private final int x, y, w, h;
+
+		/* The remembered Triangles, row by row; null if none yet. */
+		private final Triangle[] cells;
+
+		/* The Triangle split by the latest Point, used for empty buckets. */
+		private Triangle last;
+
+		/** Constructor: a grid over the bounding box of the Points in outer,
+		 * sized for about n Points (n = 0 if unknown), whose walks start at
+		 * bound until a Point has been added. */
+		public WalkGrid(Point[] outer, int n, Triangle bound) {
+			// about 8 Points per bucket once every Point has been added; the
+			// Points fill only the middle quarter of each side of the box
+			size= 4 * Math.max(1, (int) Math.sqrt(n > 0 ? n / 8 : 4096));
+			int l= Integer.MAX_VALUE, b= Integer.MAX_VALUE;
+			int r= Integer.MIN_VALUE, t= Integer.MIN_VALUE;
+			for (Point p : outer) {
+				l= Math.min(l, p.x);
+				b= Math.min(b, p.y);
+				r= Math.max(r, p.x);
+				t= Math.max(t, p.y);
+			}
+			x= l;
+			y= b;
+			w= Math.max(1, r - l + 1);
+			h= Math.max(1, t - b + 1);
+			cells= new Triangle[size * size];
+			last= bound;
+		}
+
+		/** Return the index of the bucket containing p, clamping p into the
+		 * bounding box. */
+		private int cell(Point p) {
+			int i= (int) ((long) (p.x - x) * size / w);
+			int j= (int) ((long) (p.y - y) * size / h);
+			i= Math.min(size - 1, Math.max(0, i));
+			j= Math.min(size - 1, Math.max(0, j));
+			return j * size + i;
+		}
+
+		/** Return an innermost Triangle from which to walk to p. */
+		public Triangle near(Point p) {
+			// keep only innermost Triangles, so that the ones replaced since
+			// can be collected
+			int c= cell(p);
+			if (cells[c] != null) cells[c]= cells[c].innermost();
+			last= last.innermost();
+			return cells[c] == null ? last : cells[c];
+		}
+
+		/** Return an innermost Triangle. */
+		public Triangle current() {
+			last= last.innermost();
+			return last;
+		}
+
+		/** Remember that t was split to add p. */
+		public void put(Point p, Triangle t) {
+			cells[cell(p)]= t;
+			last= t;
+		}
+	}
+}
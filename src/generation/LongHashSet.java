@@ -0,0 +1,98 @@
+package generation;
+
+/** An instance is a set of longs stored in a single open-addressing table,
+ * without boxing. Points are stored as packed coordinates (see pack) and
+ * undirected edges as packed pairs of vertex numbers (see edge). */
+public final class LongHashSet {
+	/* The value that marks an empty slot; it is stored by hasEmpty. */
+	private static final long EMPTY= 0;
+
+	/* The table, whose length is a power of 2; EMPTY in unused slots. */
+	private long[] keys;
+
+	/* The number of elements, and whether EMPTY is one of them. */
+	private int size;
+	private boolean hasEmpty;
+
+	/* 64 minus the log of keys.length, used to pick a slot. */
+	private int shift;
+
+	/** Constructor: an empty set with room for about n elements. */
+	public LongHashSet(int n) {
+		int cap= Integer.highestOneBit(Math.max(8, 2 * n - 1)) << 1;
+		keys= new long[cap];
+		shift= 64 - Integer.numberOfTrailingZeros(cap);
+	}
+
+	/** Return the key of the Point (x, y). */
+	public static long pack(int x, int y) {
+		return (long) x << 32 | y & 0xFFFFFFFFL;
+	}
+
+	/** Return the key of the undirected edge between vertices a and b. */
+	public static long edge(int a, int b) {
+		return a < b ? pack(a, b) : pack(b, a);
+	}
+
+	/** Return the number of elements of this set. */
+	public int size() {
+		return size;
+	}
+
+	/** Return true iff k is in this set. */
+	public boolean contains(long k) {
+		if (k == EMPTY) return hasEmpty;
+		for (int i= slot(k);; i= (i + 1) & keys.length - 1) {
+			if (keys[i] == k) return true;
+			if (keys[i] == EMPTY) return false;
+		}
+	}
+
+	/** Add k to this set. Return true iff it was not already in it. */
+	public boolean add(long k) {
+		if (k == EMPTY) {
+			if (hasEmpty) return false;
+			hasEmpty= true;
+			++size;
+			return true;
+		}
+		int i= slot(k);
+		while (keys[i] != EMPTY) {
+			if (keys[i] == k) return false;
+			i= (i + 1) & keys.length - 1;
+		}
+		keys[i]= k;
+		if (++size > keys.length >>> 1) grow();
+		return true;
+	}
+
+	/** Return the slot at which to start looking for k. */
+	private int slot(long k) {
+		return (int) (k * 0x9E3779B97F4A7C15L >>> shift);
+	}
+
+	/** Double the table, keeping every element. */
+	private void grow() {
+		long[] old= keys;
+		keys= new long[2 * old.length];
+		--shift;
+		for (long k : old) {
+			if (k == EMPTY) continue;
+			int i= slot(k);
+			while (keys[i] != EMPTY)
+				i= (i + 1) & keys.length - 1;
+			keys[i]= k;
+		}
+	}
+
+	/** Return the elements of this set, in no particular order. */
+	public long[] toArray() {
+		long[] a= new long[size];
+		int j= 0;
+		if (hasEmpty) a[j++]= EMPTY;
+		for (long k : keys) {
+			if (k != EMPTY) a[j++]= k;
+		}
+		return a;
+	}
+}
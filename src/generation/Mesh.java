@@ -0,0 +1,189 @@
+package generation;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/** An instance is a triangulation stored as a half-edge mesh in parallel
+ * int arrays, which is far more compact than a graph of Triangles and
+ * Points. Vertices are numbered 0, 1, 2, ... and half-edges likewise.
+ *
+ * Vertices 0, 1, and 2 are the vertices of the outer Triangle that spans
+ * the whole triangulation; the Points triangulated are vertices OUTER and
+ * up, in the order in which they were accepted. Every face is a
+ * counterclockwise triangle whose three half-edges are 3t, 3t + 1, and
+ * 3t + 2 for some t. Each half-edge e runs from origin(e) to origin(next(e))
+ * and is paired with its twin(e), which runs the other way in the adjacent
+ * triangle, or -1 on the boundary of the outer Triangle.
+ *
+ * A vertex removed after the triangulation is built keeps its number, so
+ * that the numbers of the others do not change, but lies on no triangle.
+ * Triangles, on the other hand, are kept packed: removing one moves the
+ * last triangle into its place, renumbering that triangle's half-edges.
+ *
+ * Outside of package generation, a Mesh is read-only. */
+public final class Mesh {
+	/** The number of vertices of the outer Triangle, which are numbered
+	 * 0 .. OUTER - 1. */
+	public static final int OUTER= 3;
+
+	/* The x and y coordinates of the vertices. */
+	private int[] xs, ys;
+
+	/* The number of vertices, including removed ones. */
+	private int vertices;
+
+	/* The removed vertices. */
+	private BitSet removed= new BitSet();
+
+	/* For each half-edge: its origin vertex, its twin half-edge (-1 if
+	 * none), and the next half-edge counterclockwise around its triangle. */
+	private int[] origin, twin, next;
+
+	/* The number of half-edges. */
+	private int halfEdges;
+
+	/** Constructor: a Mesh whose only triangle is the outer Triangle with
+	 * vertices outer[0], outer[1], and outer[2], with room for about n more
+	 * vertices (n = 0 if unknown).
+	 * Precondition: outer.length = 3 and outer is not collinear. */
+	Mesh(Point[] outer, int n) {
+		int v= OUTER + Math.max(n, 16);
+		xs= new int[v];
+		ys= new int[v];
+		origin= new int[6 * v];
+		twin= new int[6 * v];
+		next= new int[6 * v];
+		for (Point p : outer)
+			addVertex(p.x, p.y);
+		if (Predicates.orient(outer[0].x, outer[0].y, outer[1].x, outer[1].y,
+			outer[2].x, outer[2].y) > 0)
+			addTriangle(0, 1, 2);
+		else addTriangle(0, 2, 1);
+	}
+
+	/** Return the number of vertices, including the OUTER vertices and any
+	 * removed vertices. */
+	public int vertexCount() {
+		return vertices;
+	}
+
+	/** Return the x coordinate of vertex v. */
+	public int x(int v) {
+		return xs[v];
+	}
+
+	/** Return the y coordinate of vertex v. */
+	public int y(int v) {
+		return ys[v];
+	}
+
+	/** Return true iff v is a vertex of the outer Triangle. */
+	public static boolean isOuter(int v) {
+		return v < OUTER;
+	}
+
+	/** Return true iff vertex v has been removed from this Mesh. */
+	public boolean isRemoved(int v) {
+		return removed.get(v);
+	}
+
+	/** Return the number of half-edges. */
+	public int halfEdgeCount() {
+		return halfEdges;
+	}
+
+	/** Return the vertex at which half-edge e starts. */
+	public int origin(int e) {
+		return origin[e];
+	}
+
+	/** Return the vertex at which half-edge e ends. */
+	public int dest(int e) {
+		return origin[next[e]];
+	}
+
+	/** Return the half-edge paired with e, or -1 if e is on the boundary of
+	 * the outer Triangle. */
+	public int twin(int e) {
+		return twin[e];
+	}
+
+	/** Return the half-edge after e counterclockwise around its triangle. */
+	public int next(int e) {
+		return next[e];
+	}
+
+	/** Return the half-edge before e counterclockwise around its triangle. */
+	public int prev(int e) {
+		return next[next[e]];
+	}
+
+	/** Add a vertex at (x, y) and return its number. */
+	int addVertex(int x, int y) {
+		if (vertices == xs.length) {
+			xs= Arrays.copyOf(xs, 2 * vertices);
+			ys= Arrays.copyOf(ys, 2 * vertices);
+		}
+		xs[vertices]= x;
+		ys[vertices]= y;
+		return vertices++;
+	}
+
+	/** Add the triangle with counterclockwise vertices a, b, c, whose
+	 * half-edges have no twins yet, and return its half-edge from a to b. */
+	int addTriangle(int a, int b, int c) {
+		if (halfEdges == origin.length) {
+			origin= Arrays.copyOf(origin, 2 * halfEdges);
+			twin= Arrays.copyOf(twin, 2 * halfEdges);
+			next= Arrays.copyOf(next, 2 * halfEdges);
+		}
+		int e= halfEdges;
+		origin[e]= a;
+		origin[e + 1]= b;
+		origin[e + 2]= c;
+		for (int i= 0; i != 3; ++i) {
+			twin[e + i]= -1;
+			next[e + i]= e + (i + 1) % 3;
+		}
+		halfEdges += 3;
+		return e;
+	}
+
+	/** Mark vertex v as removed.
+	 * Precondition: v lies on no triangle. */
+	void removeVertex(int v) {
+		removed.set(v);
+	}
+
+	/** Remove the triangle of half-edge e, moving the last triangle into its
+	 * place.
+	 * Precondition: no other triangle's half-edge is the twin of one of e's
+	 * triangle. */
+	void removeTriangle(int e) {
+		int t= e - e % 3;
+		halfEdges -= 3;
+		if (t == halfEdges) return;
+		for (int i= 0; i != 3; ++i) {
+			origin[t + i]= origin[halfEdges + i];
+			link(t + i, twin[halfEdges + i]);
+		}
+	}
+
+	/** Remove every triangle, keeping the vertices. */
+	void clearTriangles() {
+		halfEdges= 0;
+	}
+
+	/** Make half-edge e start at vertex v. */
+	void setOrigin(int e, int v) {
+		origin[e]= v;
+	}
+
+	/** Pair half-edges e and f, where f may be -1 if e is on the boundary
+	 * of the outer Triangle. */
+	void link(int e, int f) {
+		twin[e]= f;
+		if (f != -1) twin[f]= e;
+	}
+}
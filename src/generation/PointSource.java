@@ -0,0 +1,153 @@
+package generation;
+
+import java.awt.Point;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/** An instance names a way of placing the Points of a random Delaunay
+ * triangulation in a rectangle. Each places exactly the requested number of
+ * distinct Points, so that no Point reaches a Triangulator only to be
+ * rejected as a duplicate. */
+public enum PointSource {
+	/** Points drawn uniformly at random, skipping repeats. Nearby Points may
+	 * be arbitrarily close, giving long thin triangles. */
+	UNIFORM,
+	/** Blue noise: the rectangle is split into a grid of about one cell per
+	 * Point, and each Point is placed at random in its own cell, as far as a
+	 * few tries allow from the Points already placed in the cells around
+	 * it. Points are evenly spread but not regular, giving triangles that are
+	 * close to equilateral. */
+	BLUE_NOISE;
+
+	/* The number of places tried for each BLUE_NOISE Point. */
+	private static final int TRIES= 8;
+
+	/** Return n distinct Points placed using RNG r, bound by the rectangle
+	 * with lower-left point (0, 0) parallel to the x- and y-axes with
+	 * dimensions w x h. It takes O(n) expected time.
+	 * Precondition: the rectangle holds at least n points with integer
+	 * coordinates. */
+	public List<Point> points(int n, Random r, int w, int h) {
+		IntBuffer xy= place(n, r, w, h, IntBuffer.allocate(2 * n));
+		List<Point> pts= new ArrayList<Point>(n);
+		for (int i= 0; i != n; ++i)
+			pts.add(new Point(xy.get(2 * i), xy.get(2 * i + 1)));
+		return pts;
+	}
+
+	/** Return the Points that points(n, r, w, h) returns as a buffer outside
+	 * of the heap holding x1, y1, x2, y2, ..., read from position 0 to limit
+	 * 2n. It creates no object per Point.
+	 * Precondition: as for points. */
+	public IntBuffer buffer(int n, Random r, int w, int h) {
+		IntBuffer xy= ByteBuffer.allocateDirect(8 * n)
+			.order(ByteOrder.nativeOrder()).asIntBuffer();
+		return place(n, r, w, h, xy);
+	}
+
+	/** Put the Points of points(n, r, w, h) into xy from position 0, and
+	 * return xy flipped. A heap buffer suits a caller that reads the Points
+	 * once and drops them; buffer is for ones kept outside of the heap.
+	 * Precondition: as for points, and xy has room for 2n ints. */
+	IntBuffer place(int n, Random r, int w, int h, IntBuffer xy) {
+		if (n < 0 || (long) (w + 1) * (h + 1) < n)
+			throw new IllegalArgumentException("cannot place " + n
+				+ " Points in " + w + " x " + h);
+		if (this == UNIFORM) uniform(n, r, w, h, xy);
+		else blueNoise(n, r, w, h, xy);
+		xy.flip();
+		return xy;
+	}
+
+	/** Put n distinct Points drawn uniformly at random as in points into xy.
+	 * They are the first n distinct Points of the sequence that r yields. */
+	private static void uniform(int n, Random r, int w, int h, IntBuffer xy) {
+		LongHashSet seen= new LongHashSet(n);
+		while (seen.size() != n) {
+			int x= r.nextInt(w + 1), y= r.nextInt(h + 1);
+			if (seen.add(LongHashSet.pack(x, y))) xy.put(x).put(y);
+		}
+	}
+
+	/** Put n distinct blue-noise Points as in points into xy, in random
+	 * order. */
+	private static void blueNoise(int n, Random r, int w, int h,
+		IntBuffer xy) {
+		// a grid of cols x rows cells of at least one pixel each, with a
+		// cell for every Point and about as wide as it is tall
+		long pw= w + 1L, ph= h + 1L;
+		int cols= (int) Math.min(pw, Math.max(1,
+			Math.ceil(Math.sqrt((double) n * pw / ph))));
+		int rows= (int) Math.min(ph, Math.max(1, (n + cols - 1) / cols));
+		while ((long) cols * rows < n) {
+			if (cols < pw) ++cols;
+			else ++rows;
+		}
+
+		// choose the n cells that get a Point
+		int[] order= new int[cols * rows];
+		for (int c= 0; c != order.length; ++c)
+			order[c]= c;
+		for (int i= 0; i != n; ++i) {
+			int j= i + r.nextInt(order.length - i);
+			int c= order[i];
+			order[i]= order[j];
+			order[j]= c;
+		}
+
+		// place the Points cell by cell; at[c] is the index of the Point in
+		// cell c, or -1 if there is none yet
+		int[] at= new int[cols * rows];
+		Arrays.fill(at, -1);
+		double d2= Math.min(pw / cols, ph / rows) / 2;
+		d2= d2 * d2;
+		for (int k= 0; k != n; ++k) {
+			int c= order[k], i= c % cols, j= c / cols;
+			int l= (int) (i * pw / cols), b= (int) (j * ph / rows);
+			int cw= (int) ((i + 1) * pw / cols) - l;
+			int ch= (int) ((j + 1) * ph / rows) - b;
+
+			// keep the try farthest from its nearest neighbor, stopping at
+			// the first one that is far enough
+			int bx= 0, by= 0;
+			double far= -1;
+			for (int t= 0; t != TRIES && far < d2; ++t) {
+				int x= l + r.nextInt(cw), y= b + r.nextInt(ch);
+				double near= nearest2(x, y, xy, at, i, j, cols, rows);
+				if (near > far) {
+					bx= x;
+					by= y;
+					far= near;
+				}
+			}
+			at[c]= k;
+			xy.put(bx).put(by);
+		}
+	}
+
+	/** Return the square of the distance from (x, y) to the nearest Point of
+	 * xy in the cells around cell (i, j) of at, a grid of cols x rows cells
+	 * holding indices of Points in xy or -1 (see blueNoise), or infinity if
+	 * there is none. */
+	private static double nearest2(int x, int y, IntBuffer xy, int[] at,
+		int i, int j, int cols, int rows) {
+		double near= Double.POSITIVE_INFINITY;
+		for (int cj= Math.max(0, j - 1); cj <= Math.min(rows - 1, j + 1);
+			++cj) {
+			for (int ci= Math.max(0, i - 1); ci <= Math.min(cols - 1, i + 1);
+				++ci) {
+				int q= at[cj * cols + ci];
+				if (q != -1) {
+					double dx= xy.get(2 * q) - x, dy= xy.get(2 * q + 1) - y;
+					near= Math.min(near, dx * dx + dy * dy);
+				}
+			}
+		}
+		return near;
+	}
+}
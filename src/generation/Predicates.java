@@ -0,0 +1,137 @@
+package generation;
+
+import java.math.BigInteger;
+
+/** Exact geometric predicates on integer coordinates. Unlike tests built
+ * on angles or divisions, their signs are never wrong, so Points on an edge,
+ * on a vertex, or on a common circle are always recognized as such.
+ *
+ * Precondition for all methods: every coordinate c satisfies
+ * |c| < 2^30, so that every difference of two coordinates fits in an int. */
+public final class Predicates {
+
+	/* Relative error bound of the floating-point inCircle determinant
+	 * (Shewchuk, 1997). If the determinant exceeds this times the permanent,
+	 * its sign is correct. */
+	private static final double IN_CIRCLE_ERROR= (10 + 96 * 0x1p-53) * 0x1p-53;
+
+	/* Differences below this bound make the inCircle determinant fit in a
+	 * long: each term is less than 2 * 2^29 * 2 * 2^29 = 2^60. */
+	private static final int LONG_SAFE= 23170;
+
+	/* Relative error bound of the floating-point terms of leftOf, with a
+	 * wide margin. */
+	private static final double LEFT_OF_ERROR= 0x1p-40;
+
+	/** Constructor: none; this class has only static methods. */
+	private Predicates() {}
+
+	/** Return twice the signed area of the triangle (a, b, c): positive iff
+	 * a, b, c are counterclockwise, negative iff they are clockwise, and 0 iff
+	 * they are collinear. */
+	public static long orient(int ax, int ay, int bx, int by, int cx, int cy) {
+		return (long) (bx - ax) * (cy - ay) - (long) (by - ay) * (cx - ax);
+	}
+
+	/** Return a value that is positive iff d lies strictly inside the
+	 * circle through a, b, and c, negative iff it lies strictly outside, and 0
+	 * iff the four points are cocircular (or a, b, c are collinear).
+	 *
+	 * Precondition: a, b, c are counterclockwise. If they are clockwise, the
+	 * sign of the result is reversed. */
+	public static int inCircle(int ax, int ay, int bx, int by, int cx, int cy,
+		int dx, int dy) {
+		long adx= ax - dx, ady= ay - dy;
+		long bdx= bx - dx, bdy= by - dy;
+		long cdx= cx - dx, cdy= cy - dy;
+
+		if (small(adx) && small(ady) && small(bdx) && small(bdy) && small(cdx)
+			&& small(cdy)) {
+			long det= (adx * adx + ady * ady) * (bdx * cdy - cdx * bdy)
+				+ (bdx * bdx + bdy * bdy) * (cdx * ady - adx * cdy)
+				+ (cdx * cdx + cdy * cdy) * (adx * bdy - bdx * ady);
+			return Long.signum(det);
+		}
+
+		// filter with doubles; the differences are exact, the products not
+		double alift= (double) adx * adx + (double) ady * ady;
+		double blift= (double) bdx * bdx + (double) bdy * bdy;
+		double clift= (double) cdx * cdx + (double) cdy * cdy;
+		double bc= (double) bdx * cdy - (double) cdx * bdy;
+		double ca= (double) cdx * ady - (double) adx * cdy;
+		double ab= (double) adx * bdy - (double) bdx * ady;
+		double det= alift * bc + blift * ca + clift * ab;
+		double permanent=
+			(Math.abs((double) bdx * cdy) + Math.abs((double) cdx * bdy)) * alift
+			+ (Math.abs((double) cdx * ady) + Math.abs((double) adx * cdy)) * blift
+			+ (Math.abs((double) adx * bdy) + Math.abs((double) bdx * ady)) * clift;
+		double bound= IN_CIRCLE_ERROR * permanent;
+		if (det > bound) return 1;
+		if (-det > bound) return -1;
+
+		return exactInCircle(adx, ady, bdx, bdy, cdx, cdy);
+	}
+
+	/** Return true iff the circle through a, b, and c lies strictly to the
+	 * left of the vertical line through (x, 0), i.e. every point of it has an
+	 * x coordinate less than x.
+	 *
+	 * Precondition: a, b, c are counterclockwise. */
+	public static boolean leftOf(int ax, int ay, int bx, int by, int cx, int cy,
+		int x) {
+		// relative to a, the center is (nx, ny) / d, and the circle is left of
+		// the line iff m - nx > 0 and (m - nx)^2 > nx^2 + ny^2, where
+		// m / d = x - ax
+		long bdx= bx - (long) ax, bdy= by - (long) ay;
+		long cdx= cx - (long) ax, cdy= cy - (long) ay;
+		double blift= (double) bdx * bdx + (double) bdy * bdy;
+		double clift= (double) cdx * cdx + (double) cdy * cdy;
+		double d= 2.0 * orient(ax, ay, bx, by, cx, cy);
+		double m= d * (x - (long) ax);
+		double nx= cdy * blift - bdy * clift;
+		double ny= bdx * clift - cdx * blift;
+		double s= m - nx, det= s * s - nx * nx - ny * ny;
+
+		// every rounding error is far below LEFT_OF_ERROR times the size of
+		// the terms
+		double size= Math.abs(m) + Math.abs(cdy * blift) + Math.abs(bdy * clift)
+			+ Math.abs(bdx * clift) + Math.abs(cdx * blift);
+		double bound= LEFT_OF_ERROR * size;
+		if (s > bound && det > bound * size) return true;
+		if (s < -bound || det < -bound * size) return false;
+
+		BigInteger bigD= BigInteger.valueOf(orient(ax, ay, bx, by, cx, cy))
+			.shiftLeft(1);
+		BigInteger bigM= bigD.multiply(BigInteger.valueOf(x - (long) ax));
+		BigInteger bl= BigInteger.valueOf(bdx * bdx + bdy * bdy);
+		BigInteger cl= BigInteger.valueOf(cdx * cdx + cdy * cdy);
+		BigInteger bigNx= BigInteger.valueOf(cdy).multiply(bl)
+			.subtract(BigInteger.valueOf(bdy).multiply(cl));
+		BigInteger bigNy= BigInteger.valueOf(bdx).multiply(cl)
+			.subtract(BigInteger.valueOf(cdx).multiply(bl));
+		BigInteger bigS= bigM.subtract(bigNx);
+		return bigS.signum() > 0 && bigS.multiply(bigS)
+			.compareTo(bigNx.multiply(bigNx).add(bigNy.multiply(bigNy))) > 0;
+	}
+
+	/** Return true iff |d| is small enough for the long inCircle. */
+	private static boolean small(long d) {
+		return -LONG_SAFE < d && d < LONG_SAFE;
+	}
+
+	/** Return the sign of the inCircle determinant of the differences
+	 * (adx, ady), (bdx, bdy), (cdx, cdy), computed without rounding. */
+	private static int exactInCircle(long adx, long ady, long bdx, long bdy,
+		long cdx, long cdy) {
+		BigInteger ax= BigInteger.valueOf(adx), ay= BigInteger.valueOf(ady);
+		BigInteger bx= BigInteger.valueOf(bdx), by= BigInteger.valueOf(bdy);
+		BigInteger cx= BigInteger.valueOf(cdx), cy= BigInteger.valueOf(cdy);
+		BigInteger alift= BigInteger.valueOf(adx * adx + ady * ady);
+		BigInteger blift= BigInteger.valueOf(bdx * bdx + bdy * bdy);
+		BigInteger clift= BigInteger.valueOf(cdx * cdx + cdy * cdy);
+		BigInteger det= alift.multiply(bx.multiply(cy).subtract(cx.multiply(by)))
+			.add(blift.multiply(cx.multiply(ay).subtract(ax.multiply(cy))))
+			.add(clift.multiply(ax.multiply(by).subtract(bx.multiply(ay))));
+		return det.signum();
+	}
+}
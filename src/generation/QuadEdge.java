@@ -0,0 +1,144 @@
+package generation;
+
+/** An instance is one of the four directed edges of a quad-edge record
+ * (Guibas and Stolfi, 1985): an undirected edge, seen from either of its
+ * endpoints, and its dual seen from either of its faces. The four are
+ * linked in a ring by rot(). Only primal edges have an origin.
+ *
+ * An instance maintains its origin, a vertex number, and the next edge
+ * counterclockwise around that origin. */
+class QuadEdge {
+	/* The vertex number of the origin of this directed edge; -1 for dual
+	 * edges. */
+	private int orig= -1;
+
+	/* The next edge counterclockwise with the same origin. */
+	private QuadEdge next;
+
+	/* This edge rotated 90 degrees counterclockwise. */
+	private QuadEdge rot;
+
+	/* True iff this record has been deleted from its subdivision. */
+	private boolean deleted;
+
+	/* The number of the Mesh half-edge copied from this directed edge; -1
+	 * if none. */
+	private int halfEdge= -1;
+
+	/** Constructor: an edge with no origin, whose links are set by
+	 * makeEdge. */
+	private QuadEdge() {}
+
+	/** Return a new edge from a to b, which is isolated: it is the only
+	 * edge around a and around b. */
+	public static QuadEdge makeEdge(int a, int b) {
+		QuadEdge[] q= new QuadEdge[4];
+		for (int i= 0; i != 4; ++i)
+			q[i]= new QuadEdge();
+		for (int i= 0; i != 4; ++i)
+			q[i].rot= q[(i + 1) % 4];
+		q[0].next= q[0];
+		q[1].next= q[3];
+		q[2].next= q[2];
+		q[3].next= q[1];
+		q[0].orig= a;
+		q[2].orig= b;
+		return q[0];
+	}
+
+	/** Exchange the rings around the origins of a and b (and around their
+	 * left faces), joining two rings or splitting one in two. */
+	public static void splice(QuadEdge a, QuadEdge b) {
+		QuadEdge alpha= a.next.rot;
+		QuadEdge beta= b.next.rot;
+
+		QuadEdge t1= b.next;
+		QuadEdge t2= a.next;
+		QuadEdge t3= beta.next;
+		QuadEdge t4= alpha.next;
+
+		a.next= t1;
+		b.next= t2;
+		alpha.next= t3;
+		beta.next= t4;
+	}
+
+	/** Return a new edge from the destination of a to the origin of b, such
+	 * that a, the new edge, and b share the same left face. */
+	public static QuadEdge connect(QuadEdge a, QuadEdge b) {
+		QuadEdge e= makeEdge(a.dest(), b.orig);
+		splice(e, a.lNext());
+		splice(e.sym(), b);
+		return e;
+	}
+
+	/** Remove e from its subdivision. */
+	public static void delete(QuadEdge e) {
+		splice(e, e.oPrev());
+		splice(e.sym(), e.sym().oPrev());
+		e.deleted= true;
+		e.sym().deleted= true;
+	}
+
+	/** Return true iff this edge has been deleted. */
+	public boolean isDeleted() {
+		return deleted;
+	}
+
+	/** Return the number of the Mesh half-edge copied from this directed
+	 * edge, or -1 if none. */
+	public int halfEdge() {
+		return halfEdge;
+	}
+
+	/** Record that this directed edge was copied to Mesh half-edge e. */
+	public void setHalfEdge(int e) {
+		halfEdge= e;
+	}
+
+	/** Return the origin of this edge. */
+	public int orig() {
+		return orig;
+	}
+
+	/** Return the destination of this edge. */
+	public int dest() {
+		return sym().orig;
+	}
+
+	/** Return this edge rotated 90 degrees counterclockwise. */
+	public QuadEdge rot() {
+		return rot;
+	}
+
+	/** Return this edge reversed. */
+	public QuadEdge sym() {
+		return rot.rot;
+	}
+
+	/** Return this edge rotated 90 degrees clockwise. */
+	public QuadEdge invRot() {
+		return rot.rot.rot;
+	}
+
+	/** Return the next edge counterclockwise around the origin. */
+	public QuadEdge oNext() {
+		return next;
+	}
+
+	/** Return the next edge clockwise around the origin. */
+	public QuadEdge oPrev() {
+		return rot.next.rot;
+	}
+
+	/** Return the next edge counterclockwise around the left face. */
+	public QuadEdge lNext() {
+		return invRot().next.rot;
+	}
+
+	/** Return the next edge clockwise around the right face, which starts
+	 * at the destination of this edge. */
+	public QuadEdge rPrev() {
+		return sym().next;
+	}
+}
@@ -0,0 +1,165 @@
+package generation;
+
+import java.util.Arrays;
+
+/** An instance names a connected subgraph of the Delaunay triangulation of a
+ * set of Points. From densest to sparsest, each contains the next:
+ * DELAUNAY, GABRIEL, RELATIVE_NEIGHBORHOOD, MINIMUM_SPANNING_TREE. Each is
+ * computed from the edges of a Mesh in O(n log n) time or better, with exact
+ * integer arithmetic. */
+public enum Subgraph {
+	/** Every edge of the triangulation. */
+	DELAUNAY,
+	/** The edges (a, b) such that no Point lies strictly inside the circle
+	 * whose diameter is ab. */
+	GABRIEL,
+	/** The edges (a, b) such that no Point is strictly nearer to both a and
+	 * b than they are to each other. */
+	RELATIVE_NEIGHBORHOOD,
+	/** The edges of a tree that connects all Points with the least total
+	 * length. Among edges of equal length, those found first are taken. */
+	MINIMUM_SPANNING_TREE;
+
+	/** Return, for each half-edge e of Delaunay triangulation m, whether
+	 * the edge of e belongs to this subgraph of the vertices of m other than
+	 * those of the outer Triangle. Both halves of an edge get the same
+	 * answer, and edges to the outer Triangle never belong. */
+	public boolean[] edges(Mesh m) {
+		boolean[] keep= new boolean[m.halfEdgeCount()];
+		for (int e= 0; e != keep.length; ++e) {
+			keep[e]= !Mesh.isOuter(m.origin(e)) && !Mesh.isOuter(m.dest(e));
+		}
+		if (this == DELAUNAY) return keep;
+
+		// Gabriel: the circle on ab holds no Point iff it holds neither
+		// vertex opposite ab
+		for (int e= 0; e != keep.length; ++e) {
+			int a= m.origin(e), b= m.dest(e);
+			if (keep[e] && (inDiametral(m, a, b, m.origin(m.prev(e)))
+				|| m.twin(e) != -1 && inDiametral(m, a, b,
+					m.origin(m.prev(m.twin(e)))))) {
+				keep[e]= false;
+			}
+		}
+		if (this == GABRIEL) return keep;
+
+		// relative neighborhood: look for a Point in the lune of each Gabriel
+		// edge among the Points nearer to one end than the other end is
+		int[] out= outEdges(m);
+		int[] mark= new int[m.vertexCount()], queue= new int[m.vertexCount()];
+		Arrays.fill(mark, -1);
+		for (int e= 0; e != keep.length; ++e) {
+			int a= m.origin(e), b= m.dest(e);
+			if (keep[e] && (a < b || m.twin(e) == -1)
+				&& inLune(m, out, mark, queue, e, a, b)) {
+				keep[e]= false;
+				if (m.twin(e) != -1) keep[m.twin(e)]= false;
+			}
+		}
+		if (this == RELATIVE_NEIGHBORHOOD) return keep;
+
+		// minimum spanning tree: Kruskal's algorithm on the relative
+		// neighborhood graph, which contains the tree
+		int k= 0;
+		Integer[] es= new Integer[keep.length];
+		for (int e= 0; e != keep.length; ++e) {
+			if (keep[e] && (m.origin(e) < m.dest(e) || m.twin(e) == -1))
+				es[k++]= e;
+		}
+		Arrays.sort(es, 0, k, (Integer e, Integer f) ->
+			Long.compare(length2(m, e), length2(m, f)));
+		int[] parent= new int[m.vertexCount()];
+		for (int v= 0; v != parent.length; ++v)
+			parent[v]= v;
+		Arrays.fill(keep, false);
+		for (int i= 0; i != k; ++i) {
+			int e= es[i];
+			int a= root(parent, m.origin(e)), b= root(parent, m.dest(e));
+			if (a != b) {
+				parent[a]= b;
+				keep[e]= true;
+				if (m.twin(e) != -1) keep[m.twin(e)]= true;
+			}
+		}
+		return keep;
+	}
+
+	/** Return true iff vertex c of m lies strictly inside the circle whose
+	 * diameter is the segment from vertex a to vertex b. */
+	private static boolean inDiametral(Mesh m, int a, int b, int c) {
+		long ax= m.x(a) - (long) m.x(c), ay= m.y(a) - (long) m.y(c);
+		long bx= m.x(b) - (long) m.x(c), by= m.y(b) - (long) m.y(c);
+		return ax * bx + ay * by < 0;
+	}
+
+	/** Return true iff a vertex of m other than those of the outer Triangle
+	 * lies strictly nearer to both vertex a and vertex b than they are to
+	 * each other, where e is the half-edge from a to b.
+	 *
+	 * It searches outward from a through the vertices strictly nearer to a
+	 * than b is. These are connected: from any of them, a walk along
+	 * Delaunay edges to vertices ever nearer to a reaches a. out holds a
+	 * half-edge out of each vertex (see outEdges); mark and queue are work
+	 * space of one element per vertex, where mark holds no e yet. */
+	private static boolean inLune(Mesh m, int[] out, int[] mark, int[] queue,
+		int e, int a, int b) {
+		long ab= distance2(m, a, b);
+		int head= 0, tail= 0;
+		queue[tail++]= a;
+		mark[a]= e;
+		while (head != tail) {
+			int v= queue[head++];
+			int f= out[v];
+			do {
+				int g= m.prev(f);
+				int c= m.dest(f);
+				f= m.twin(g);
+
+				// the neighbors of v are the ends of the half-edges out of v,
+				// and also the start of g if the fan around v ends there
+				for (int i= f == -1 ? 2 : 1; i != 0; --i, c= m.origin(g)) {
+					if (mark[c] != e && distance2(m, a, c) < ab) {
+						if (!Mesh.isOuter(c) && distance2(m, b, c) < ab)
+							return true;
+						mark[c]= e;
+						queue[tail++]= c;
+					}
+				}
+			} while (f != -1 && f != out[v]);
+		}
+		return false;
+	}
+
+	/** Return a half-edge out of each vertex of m (-1 for a removed
+	 * vertex), one with no twin if there is one. */
+	private static int[] outEdges(Mesh m) {
+		int[] out= new int[m.vertexCount()];
+		Arrays.fill(out, -1);
+		for (int e= 0; e != m.halfEdgeCount(); ++e) {
+			int v= m.origin(e);
+			if (out[v] == -1 || m.twin(e) == -1) out[v]= e;
+		}
+		return out;
+	}
+
+	/** Return the square of the length of half-edge e of m. */
+	private static long length2(Mesh m, int e) {
+		return distance2(m, m.origin(e), m.dest(e));
+	}
+
+	/** Return the square of the distance between vertices a and b of m. */
+	private static long distance2(Mesh m, int a, int b) {
+		long dx= m.x(a) - (long) m.x(b), dy= m.y(a) - (long) m.y(b);
+		return dx * dx + dy * dy;
+	}
+
+	/** Return the root of the tree of vertex v in the union-find forest
+	 * parent, halving the path to it. */
+	private static int root(int[] parent, int v) {
+		while (parent[v] != v) {
+			parent[v]= parent[parent[v]];
+			v= parent[v];
+		}
+		return v;
+	}
+}
@@ -0,0 +1,491 @@
+package generation;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/** An instance triangulates Points that arrive sorted by x, then y, while
+ * holding only the triangles near the sweep line through the latest Point.
+ *
+ * Each Point lies outside of the convex hull of the Points before it, so it
+ * is joined to the edges of the hull that it sees, and edges are flipped
+ * until the Delaunay condition holds again. A triangle whose circle lies
+ * strictly left of the sweep line can hold no later Point, so it is final:
+ * it is handed to a Sink and forgotten, along with each edge of it whose
+ * other side is final too. The working memory is thus proportional to the
+ * triangles whose circles cross the sweep line and to the hull, not to the
+ * number of Points.
+ *
+ * Unlike a Triangulator, it uses no outer Triangle, so it yields the
+ * Delaunay triangulation of the Points themselves. */
+public class SweepTriangulator {
+
+	/** An instance receives the triangles and edges of a triangulation as
+	 * they become final, naming vertices by the order in which their Points
+	 * were accepted: 0, 1, 2, .... */
+	public interface Sink {
+		/** Receive the triangle with counterclockwise vertices a, b, c. */
+		default void triangle(int a, int b, int c) {}
+
+		/** Receive the edge between vertices a and b. */
+		default void edge(int a, int b) {}
+	}
+
+	/* A twin that is final, or is the hull at hull node h if it is
+	 * hull(h); see twin. */
+	private static final int FINAL= -1;
+
+	/* For each half-edge, 3t, 3t + 1, and 3t + 2 of triangle slot t: the
+	 * vertex at which it starts and its coordinates, and its twin, which is
+	 * FINAL if the triangle across it is final, or hull(h) if it lies on
+	 * the hull, from hull node h. A free slot has id -1 at 3t. */
+	private int[] id, xs, ys, twin;
+
+	/* The place in the heap of the triangle in each slot (-1 if none), and
+	 * the stack of free slots. */
+	private int[] at;
+	private int[] free;
+	private int frees, slots;
+
+	/* The number of triangles held, and the most held so far. */
+	private int live, peak;
+
+	/* The hull, a counterclockwise cycle of nodes, each with the vertex it
+	 * holds and its coordinates, its neighbors, and the half-edge from it to
+	 * the next node (FINAL if that triangle is final, -1 before there is a
+	 * triangle). Nodes are recycled through a stack of free nodes. */
+	private int[] hid, hx, hy, hnext, hprev, hedge;
+	private int[] hfree;
+	private int hfrees, hslots;
+
+	/* The node of the latest vertex, which is always on the hull. */
+	private int latest;
+
+	/* A min-heap of the slots of the triangles held, each keyed by about the
+	 * rightmost x of its circle, or by the x of a sweep line that its circle
+	 * was found to cross. */
+	private double[] keys;
+	private int[] heapSlot;
+	private int heapSize;
+
+	/* The stack of half-edges whose Delaunay condition must be checked, each
+	 * opposite the newest vertex. */
+	private int[] stack;
+	private int top;
+
+	/* The receiver of final triangles and edges. */
+	private Sink sink;
+
+	/** Triangulate the Points of pts, which must be sorted by x, then y,
+	 * handing each triangle and each edge to sink once, as soon as it is
+	 * final, and return the number of vertices. A Point equal to the one
+	 * before it is omitted. Throw an IllegalArgumentException if pts is not
+	 * sorted, having handed over only what was final by then.
+	 * Precondition: every coordinate c satisfies |c| < 2^30. */
+	public int triangulate(Iterator<Point> pts, Sink sink) {
+		this.sink= sink;
+		id= new int[48];
+		xs= new int[48];
+		ys= new int[48];
+		twin= new int[48];
+		at= new int[16];
+		free= new int[16];
+		frees= slots= live= peak= 0;
+		hid= new int[16];
+		hx= new int[16];
+		hy= new int[16];
+		hnext= new int[16];
+		hprev= new int[16];
+		hedge= new int[16];
+		hfree= new int[16];
+		hfrees= hslots= 0;
+		latest= -1;
+		keys= new double[16];
+		heapSlot= new int[16];
+		heapSize= 0;
+		stack= new int[64];
+
+		int n= 0, first= -1;
+		try {
+			while (pts.hasNext()) {
+				Point p= pts.next();
+				if (latest != -1) {
+					int lx= hx[latest], ly= hy[latest];
+					if (p.x == lx && p.y == ly) continue;
+					if (p.x < lx || p.x == lx && p.y < ly)
+						throw new IllegalArgumentException("Points not sorted: "
+							+ p.x + ", " + p.y + " after " + lx + ", " + ly);
+				}
+				finalizeLeftOf(p.x);
+				if (first == -1 && latest != -1) insert(n, p.x, p.y);
+				else first= extend(first, n, p.x, p.y);
+				++n;
+			}
+			finish(first);
+		} finally {
+			this.sink= null;
+			id= xs= ys= twin= at= free= null;
+			hid= hx= hy= hnext= hprev= hedge= hfree= null;
+			keys= null;
+			heapSlot= stack= null;
+		}
+		return n;
+	}
+
+	/** Return the most triangles held at once by the last call of
+	 * triangulate. */
+	public int peakTriangles() {
+		return peak;
+	}
+
+	/** Add vertex v at (x, y) while all vertices so far are collinear, where
+	 * first is the node of the first of them (-1 if none), and return the
+	 * node of the first. Once v is not collinear with them, join it to each
+	 * edge between them, making the first triangles, and return -1. */
+	private int extend(int first, int v, int x, int y) {
+		int h= newNode(v, x, y);
+		if (first == -1) {
+			hnext[h]= hprev[h]= -1;
+			latest= h;
+			return h;
+		}
+		long o= first == latest ? 0 : Predicates.orient(hx[first], hy[first],
+			hx[latest], hy[latest], x, y);
+		if (o == 0) {
+			hnext[latest]= h;
+			hprev[h]= latest;
+			hnext[h]= -1;
+			latest= h;
+			return first;
+		}
+
+		// v is left of the line (o > 0) or right of it: join v to each edge
+		// (a, b) of the chain, in a triangle (a, b, v) or (b, a, v), each
+		// sharing an edge to v with the one before it
+		int last= latest, t0= -1, tk= -1;
+		for (int a= first, b= hnext[a]; b != -1; a= b, b= hnext[b]) {
+			int t= o > 0 ? newTriangle(a, b, h) : newTriangle(b, a, h);
+			if (o > 0) hedge[a]= t;
+			else hedge[b]= t;
+			if (t0 == -1) t0= t;
+			else if (o > 0) link(t + 2, tk + 1);
+			else link(t + 1, tk + 2);
+			tk= t;
+		}
+
+		// close the hull: first, ..., last, v if v is left, else v and the
+		// chain reversed; the edges to v lie in the first and last triangles
+		if (o > 0) {
+			hnext[last]= h;
+			hprev[h]= last;
+			hnext[h]= first;
+			hprev[first]= h;
+			hedge[last]= tk + 1;
+			hedge[h]= t0 + 2;
+		} else {
+			for (int a= first, next; a != -1; a= next) {
+				next= hnext[a];
+				hnext[a]= hprev[a];
+				hprev[a]= next;
+			}
+			hnext[h]= last;
+			hprev[last]= h;
+			hprev[h]= first;
+			hnext[first]= h;
+			hedge[first]= t0 + 1;
+			hedge[h]= tk + 2;
+		}
+		int a= h;
+		do {
+			twin[hedge[a]]= hull(a);
+			a= hnext[a];
+		} while (a != h);
+		latest= h;
+		return -1;
+	}
+
+	/** Add vertex v at (x, y), which lies outside of the hull, join it to
+	 * the edges of the hull that it sees, and restore the Delaunay
+	 * condition. */
+	private void insert(int v, int x, int y) {
+		// the edges of the hull that v sees lie between nodes s and u, and
+		// include an edge at the latest vertex
+		int s= latest, u= latest;
+		while (sees(hprev[s], s, x, y))
+			s= hprev[s];
+		while (sees(u, hnext[u], x, y))
+			u= hnext[u];
+
+		// join v to each edge (a, b), in a triangle (a, v, b) sharing the edge
+		// from v to a with the one before it, and replace the nodes between s
+		// and u by the node of v
+		int h= newNode(v, x, y);
+		top= 0;
+		int before= -1;
+		for (int a= s, b= hnext[a]; a != u; a= b, b= hnext[b]) {
+			int t= newTriangle(a, h, b);
+			link(t + 2, hedge[a]);
+			if (before == -1) {
+				hedge[s]= t;
+				twin[t]= hull(s);
+			} else link(t, before + 1);
+			if (a != s) freeNode(a);
+			push(t + 2);
+			before= t;
+		}
+		hnext[s]= h;
+		hprev[h]= s;
+		hnext[h]= u;
+		hprev[u]= h;
+		hedge[h]= before + 1;
+		twin[before + 1]= hull(h);
+		latest= h;
+
+		while (top != 0)
+			legalize(stack[--top]);
+	}
+
+	/** Return true iff (x, y) lies strictly right of the edge of the hull from
+	 * node a to node b. */
+	private boolean sees(int a, int b, int x, int y) {
+		return Predicates.orient(hx[a], hy[a], hx[b], hy[b], x, y) < 0;
+	}
+
+	/** If the edge of half-edge e = ab, which is opposite the newest vertex p
+	 * in triangle (a, b, p), violates the Delaunay condition, flip it and push
+	 * the two edges that are then opposite p. */
+	private void legalize(int e) {
+		int f= twin[e];
+		if (f < 0) return;
+		int e1= next(e), e2= next(e1);
+		int f1= next(f), f2= next(f1);
+		if (Predicates.inCircle(xs[e], ys[e], xs[e1], ys[e1], xs[e2], ys[e2],
+			xs[f2], ys[f2]) <= 0)
+			return;
+
+		// replace ab by pd: e becomes (d, p, a) and f becomes (p, d, b),
+		// copying each origin from a half-edge not yet overwritten
+		int pb= twin[e1], ap= twin[e2];
+		int ad= twin[f1], db= twin[f2];
+		copyOrigin(e, f2);
+		copyOrigin(f2, e1);
+		copyOrigin(e1, e2);
+		copyOrigin(e2, f1);
+		copyOrigin(f, e1);
+		copyOrigin(f1, e);
+		link(e, f);
+		link(e1, ap);
+		link(e2, ad);
+		link(f1, db);
+		link(f2, pb);
+		renew(slotOf(e));
+		renew(slotOf(f));
+		push(e2);
+		push(f1);
+	}
+
+	/** Make half-edge e start where half-edge f starts. */
+	private void copyOrigin(int e, int f) {
+		id[e]= id[f];
+		xs[e]= xs[f];
+		ys[e]= ys[f];
+	}
+
+	/** Pair half-edge e with f, which may instead be FINAL or hull(h). */
+	private void link(int e, int f) {
+		twin[e]= f;
+		if (f >= 0) twin[f]= e;
+		else if (f != FINAL) hedge[-2 - f]= e;
+	}
+
+	/** Return the twin of a half-edge on the hull from node h. */
+	private static int hull(int h) {
+		return -2 - h;
+	}
+
+	/** Return the half-edge after e counterclockwise around its triangle. */
+	private static int next(int e) {
+		return e % 3 == 2 ? e - 2 : e + 1;
+	}
+
+	/** Return the slot of the triangle of half-edge e. */
+	private static int slotOf(int e) {
+		return e / 3;
+	}
+
+	/** Add the triangle with counterclockwise vertices at nodes a, b, c,
+	 * whose half-edges have no twins yet, and return its half-edge from a
+	 * to b. */
+	private int newTriangle(int a, int b, int c) {
+		int t;
+		if (frees != 0) t= free[--frees];
+		else {
+			t= slots++;
+			if (3 * t == id.length) {
+				id= Arrays.copyOf(id, 2 * id.length);
+				xs= Arrays.copyOf(xs, id.length);
+				ys= Arrays.copyOf(ys, id.length);
+				twin= Arrays.copyOf(twin, id.length);
+				at= Arrays.copyOf(at, id.length / 3);
+			}
+			at[t]= -1;
+		}
+		setOrigin(3 * t, a);
+		setOrigin(3 * t + 1, b);
+		setOrigin(3 * t + 2, c);
+		peak= Math.max(peak, ++live);
+		renew(t);
+		return 3 * t;
+	}
+
+	/** Make half-edge e start at the vertex of node h, with no twin yet. */
+	private void setOrigin(int e, int h) {
+		id[e]= hid[h];
+		xs[e]= hx[h];
+		ys[e]= hy[h];
+		twin[e]= FINAL;
+	}
+
+	/** Note that the triangle in slot t is new, making it a candidate for
+	 * finalization. */
+	private void renew(int t) {
+		int e= 3 * t;
+		double ax= xs[e], ay= ys[e];
+		double bx= xs[e + 1] - ax, by= ys[e + 1] - ay;
+		double cx= xs[e + 2] - ax, cy= ys[e + 2] - ay;
+		double d= 2 * (bx * cy - by * cx);
+		double b2= bx * bx + by * by, c2= cx * cx + cy * cy;
+		double nx= cy * b2 - by * c2, ny= bx * c2 - cx * b2;
+		key(t, ax + (nx + Math.sqrt(nx * nx + ny * ny)) / d);
+	}
+
+	/** Finalize every triangle whose circle lies strictly left of the
+	 * vertical line through (x, 0). */
+	private void finalizeLeftOf(int x) {
+		while (heapSize != 0 && keys[0] < x) {
+			int t= heapSlot[0], e= 3 * t;
+			if (Predicates.leftOf(xs[e], ys[e], xs[e + 1], ys[e + 1], xs[e + 2],
+				ys[e + 2], x)) {
+				poll();
+				finalizeTriangle(t);
+			} else key(t, x);
+		}
+	}
+
+	/** Hand the triangle in slot t to the sink, along with each of its edges
+	 * whose other side is already final, and free the slot. */
+	private void finalizeTriangle(int t) {
+		int e= 3 * t;
+		sink.triangle(id[e], id[e + 1], id[e + 2]);
+		for (int i= 0; i != 3; ++i) {
+			int f= twin[e + i];
+			if (f >= 0) twin[f]= FINAL;
+			else if (f == FINAL) sink.edge(id[e + i], id[next(e + i)]);
+			else hedge[-2 - f]= FINAL;
+		}
+		id[e]= -1;
+		if (frees == free.length) free= Arrays.copyOf(free, 2 * frees);
+		free[frees++]= t;
+		--live;
+	}
+
+	/** Hand every remaining triangle and edge to the sink, where first is
+	 * the node of the first vertex while all vertices are collinear. */
+	private void finish(int first) {
+		if (first != -1 || latest == -1) {
+			for (int a= first; a != -1 && hnext[a] != -1; a= hnext[a])
+				sink.edge(hid[a], hid[hnext[a]]);
+			return;
+		}
+		for (int t= 0; t != slots; ++t) {
+			if (id[3 * t] != -1) finalizeTriangle(t);
+		}
+		int a= latest;
+		do {
+			sink.edge(hid[a], hid[hnext[a]]);
+			a= hnext[a];
+		} while (a != latest);
+	}
+
+	/** Return a new hull node holding vertex v at (x, y). */
+	private int newNode(int v, int x, int y) {
+		int h;
+		if (hfrees != 0) h= hfree[--hfrees];
+		else {
+			h= hslots++;
+			if (h == hid.length) {
+				int k= 2 * h;
+				hid= Arrays.copyOf(hid, k);
+				hx= Arrays.copyOf(hx, k);
+				hy= Arrays.copyOf(hy, k);
+				hnext= Arrays.copyOf(hnext, k);
+				hprev= Arrays.copyOf(hprev, k);
+				hedge= Arrays.copyOf(hedge, k);
+			}
+		}
+		hid[h]= v;
+		hx[h]= x;
+		hy[h]= y;
+		hedge[h]= -1;
+		return h;
+	}
+
+	/** Free hull node h, which is no longer on the hull. */
+	private void freeNode(int h) {
+		if (hfrees == hfree.length) hfree= Arrays.copyOf(hfree, 2 * hfrees);
+		hfree[hfrees++]= h;
+	}
+
+	/** Push half-edge e onto the stack of half-edges to check. */
+	private void push(int e) {
+		if (top == stack.length)
+			stack= Arrays.copyOf(stack, 2 * top);
+		stack[top++]= e;
+	}
+
+	/** Key the triangle in slot t by k in the heap, adding it if it is not
+	 * there. */
+	private void key(int t, double k) {
+		int i= at[t];
+		if (i == -1) {
+			if (heapSize == keys.length) {
+				keys= Arrays.copyOf(keys, 2 * heapSize);
+				heapSlot= Arrays.copyOf(heapSlot, 2 * heapSize);
+			}
+			i= heapSize++;
+		}
+
+		// move the entry up past larger keys, or else down past smaller ones
+		while (i > 0 && keys[(i - 1) / 2] > k) {
+			put((i - 1) / 2, i);
+			i= (i - 1) / 2;
+		}
+		while (2 * i + 1 < heapSize) {
+			int c= 2 * i + 1;
+			if (c + 1 < heapSize && keys[c + 1] < keys[c]) ++c;
+			if (keys[c] >= k) break;
+			put(c, i);
+			i= c;
+		}
+		keys[i]= k;
+		heapSlot[i]= t;
+		at[t]= i;
+	}
+
+	/** Remove the root of the heap. */
+	private void poll() {
+		at[heapSlot[0]]= -1;
+		--heapSize;
+		if (heapSize == 0) return;
+		int t= heapSlot[heapSize];
+		at[t]= 0;
+		key(t, keys[heapSize]);
+	}
+
+	/** Move entry i of the heap to place j. */
+	private void put(int i, int j) {
+		keys[j]= keys[i];
+		heapSlot[j]= heapSlot[i];
+		at[heapSlot[j]]= j;
+	}
+}
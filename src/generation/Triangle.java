@@ -1,14 +1,16 @@
 package generation;
 
+import java.util.ArrayDeque;
 import java.util.Queue;
 import java.awt.Point;
+import generation.PointLocation.Location;
 import java.util.LinkedList;
-import java.util.Set;
+import java.util.Map;
 
-/** Helper class used for Delaunay Triangulation. Uses Barycentric coordinates
- * to determine if a point is inside a given triangle and then tracks any
- * sub-triangles created inside, as well as Triangles sharing an edge with
- * this Triangle.
+/** Helper class used for Delaunay Triangulation. Uses exact Barycentric
+ * coordinates to determine if a point is inside a given triangle and then
+ * tracks any sub-triangles created inside, as well as Triangles sharing an
+ * edge with this Triangle.
  * 
  * An instance maintains the three vertices of a triangle and recursively
  * tracks one layer of sub-triangles within it.
@@ -27,8 +29,12 @@ public class Triangle {
     private HistoryEvent event;
 
     /* Determinant from Barycentric coordinate conversion used to find if a
-     * point is inside of this Triangle */
-    private double detT;
+     * point is inside of this Triangle; twice the signed area of vs. */
+    private long detT;
+
+    /* The first half-edge of this Triangle once it is copied to a Mesh; -1
+     * until then. */
+    private int meshEdge= -1;
 
     /** Constructor: a Triangle with three vertices p1, p2, and p3, no
      * sub-Triangles, and no shared-edge Triangles. */
@@ -36,13 +42,12 @@ public class Triangle {
         vs[0]= p1;
         vs[1]= p2;
         vs[2]= p3;
-        detT= (vs[1].y - vs[2].y) * (vs[0].x - vs[2].x)
-                + (vs[2].x - vs[1].x) * (vs[0].y - vs[2].y);
+        detT= Predicates.orient(p3.x, p3.y, p1.x, p1.y, p2.x, p2.y);
     }
 
     /** If this Triangle contains p, adds p to this Triangle, splitting the
-     * appropriate innermost Triangle, adjusting the triangulation set ts as
-     * needed, and maintaining the Delaunay condition, then returns true.
+     * appropriate innermost Triangle and maintaining the Delaunay condition,
+     * then returns true.
      * Otherwise, returns false.
      * 
      * N.B. This method allows Points to be put on edges, as well as 4 points to
@@ -51,13 +56,22 @@ public class Triangle {
      * 
      * Precondition: p's coordinates are unique. outer is the outermost non-null
      * Triangle of a triangulation. */
-    public boolean addPoint(Point p, Set<Triangle> ts) {
-        PointLocation pLoc= getInnermost(p);
+    public boolean addPoint(Point p) {
+        return addPoint(getInnermost(p), p);
+    }
+
+    /** If pLoc is not an OUT or VERTEX PointLocation, adds p to the innermost
+     * Triangle of pLoc, maintaining the Delaunay condition, then returns true.
+     * Otherwise, returns false.
+     *
+     * Precondition: pLoc is the location of p on an innermost Triangle, as
+     * returned by locate(p) or walk(p). */
+    public static boolean addPoint(PointLocation pLoc, Point p) {
         switch (pLoc.getLocation()) {
             case OUT:
             case VERTEX: return false;
             case EDGE:
-                pLoc.getTriangle().addOnEdge(p, pLoc.getPoint(), ts);
+                pLoc.getTriangle().addOnEdge(p, pLoc.getPoint());
                 return true;
             default: break;
         }
@@ -68,10 +82,8 @@ public class Triangle {
         // sub[1]: v1, v2, p
         // sub[2]: v2, v0, p
         Triangle[] sub= new Triangle[3];
-        for (int i= 0; i != 3; ++i) {
+        for (int i= 0; i != 3; ++i)
             sub[i]= new Triangle(t.vs[i], t.vs[(i + 1) % 3], p);
-            ts.add(sub[i]);
-        }
 
         // create the HistoryEvent for this addition
         t.event= new HistoryEvent(sub);
@@ -106,22 +118,20 @@ public class Triangle {
         // flip bad edges until the condition is universally true
         while (!flipQueue.isEmpty()) {
             Quad q= flipQueue.remove();
-            q.flipBadSharedEdge(flipQueue, ts);
+            q.flipBadSharedEdge(flipQueue);
         }
-
-        ts.remove(t);
         return true;
     }
 
     /** Add p to an edge of this Triangle, splitting both this Triangle and its
-     * particular neighbor if necessary, adjusting the triangulation set ts as
-     * needed, and maintaining the Delaunay condition.
+     * particular neighbor if necessary, and maintaining the Delaunay
+     * condition.
      * 
      * N.B. The resulting triangulation will not be unique.
      * 
      * Precondition: this Triangle is an innermost Triangle. p lies on an edge
      * of this Triangle. */
-    private void addOnEdge(Point p, Point offEdge, Set<Triangle> ts) {
+    private void addOnEdge(Point p, Point offEdge) {
         // decide if we need a 4-way split or just a 2-way split
         SharedEdge edge= null;
         for (SharedEdge e : es) {
@@ -136,16 +146,15 @@ public class Triangle {
             Triangle t2= edge.t2();
             Point offEdge1= edge.unsharedVertex(t1);
             Point offEdge2= edge.unsharedVertex(t2);
-            line= t1.splitIntoTwo(p, offEdge1, ts, line);
-            t2.splitIntoTwo(p, offEdge2, ts, line);
+            line= t1.splitIntoTwo(p, offEdge1, line);
+            t2.splitIntoTwo(p, offEdge2, line);
         } else {
-            splitIntoTwo(p, offEdge, ts, null);
+            splitIntoTwo(p, offEdge, null);
         }
     }
 
-    /** Add p to an edge of this Triangle, splitting this Triangle, adjusting
-     * the triangulation set ts as needed, and maintaining the Delaunay
-     * condition.
+    /** Add p to an edge of this Triangle, splitting this Triangle and
+     * maintaining the Delaunay condition.
      * 
      * If line is null, don't try to add any SharedEdges on the split edge.
      * If line[0] is a null SharedEdge, create two new SharedEdges.
@@ -153,15 +162,13 @@ public class Triangle {
      * 
      * Precondition: this Triangle is an innermost Triangle. p lies on
      * an edge of this Triangle. line is null or line.length = 2. */
-    private SharedEdge[] splitIntoTwo(Point p, Point offEdge, Set<Triangle> ts,
+    private SharedEdge[] splitIntoTwo(Point p, Point offEdge,
             SharedEdge[] line) {
         Point[] a= selectPoint(offEdge);
         // sub[i]: on-edge, p, offEdge
         Triangle[] sub= new Triangle[2];
-        for (int i= 0; i != 2; ++i) {
+        for (int i= 0; i != 2; ++i)
             sub[i]= new Triangle(a[i + 1], p, offEdge);
-            ts.add(sub[i]);
-        }
 
         event= new HistoryEvent(sub);
 
@@ -188,10 +195,8 @@ public class Triangle {
         // flip bad edges until the condition is universally true
         while (!flipQueue.isEmpty()) {
             Quad q= flipQueue.remove();
-            q.flipBadSharedEdge(flipQueue, ts);
+            q.flipBadSharedEdge(flipQueue);
         }
-
-        ts.remove(this);
         return line;
     }
 
@@ -226,35 +231,15 @@ public class Triangle {
         return line;
     }
 
-    /** Return the angle (in radians) between edges pointing out of vertex p.
-     * Precondition: p is a vertex of this Triangle. */
-    public double angle(Point p) {
-        // a[0] is the vertex p; a[1] and a[2] are the other two points
-        Point[] a= selectPoint(p);
-
-        // vector u is (1 - 0), v is (2 - 0).
-        int ux= a[1].x - a[0].x;
-        int uy= a[1].y - a[0].y;
-        int vx= a[2].x - a[0].x;
-        int vy= a[2].y - a[0].y;
-
-        // find the dot product of u and v
-        double dot= ux * vx + uy * vy;
-
-        // find the product of magnitudes || u || * || v ||
-        double mag= Math.sqrt(ux * ux + uy * uy) * Math.sqrt(vx * vx + vy * vy);
-
-        // cos t= u dot v / (|| u || || v ||)
-        return Math.acos(dot / mag);
-    }
-
     /** Return a PointLocation for p relative to this Triangle. */
     public PointLocation pointLocation(Point p) {
-        double l1= ((vs[1].y - vs[2].y) * (p.x - vs[2].x)
-                + (vs[2].x - vs[1].x) * (p.y - vs[2].y)) / detT;
-        double l2= ((vs[2].y - vs[0].y) * (p.x - vs[2].x)
-                + (vs[0].x - vs[2].x) * (p.y - vs[2].y)) / detT;
-        double l3= 1 - l1 - l2;
+        return pointLocation(p, weights(p));
+    }
+
+    /** Return a PointLocation for p relative to this Triangle, where w
+     * holds the weights of p in this Triangle. */
+    private PointLocation pointLocation(Point p, long[] w) {
+        long l1= w[0], l2= w[1], l3= w[2];
 
         if (l1 < 0 || l2 < 0 || l3 < 0) return PointLocation.makeOut();
         if ((l1 == 0 && l2 == 0) || (l2 == 0 && l3 == 0)
@@ -266,23 +251,80 @@ public class Triangle {
         return PointLocation.makeIn(this);
     }
 
+    /** Return a PointLocation for the location of p within this Triangle.
+     * The PointLocation will be on the innermost Triangle possible.
+     *
+     * Precondition: this is the outermost Triangle of a triangulation. */
+    public PointLocation locate(Point p) {
+        return getInnermost(p);
+    }
+
     /** Return a PointLocation for the location of p within this Triangle.
      * The PointLocation will be on the innermost Triangle possible. */
     private PointLocation getInnermost(Point p) {
         PointLocation pLoc= pointLocation(p);
-        switch (pLoc.getLocation()) {
-            case EDGE:
-            case IN:
-                HistoryEvent he= pLoc.getTriangle().event;
-                if (he == null) return pLoc;
-                pLoc= he.select(p);
-                if (pLoc.isNotOut())
-                    return pLoc.getTriangle().getInnermost(p);
-                else
-                    return pLoc;
-            default:
-                return pLoc;
+        // descend iteratively: the DAG is as deep as the number of events
+        // on p's branch, which can overflow the stack on large inputs
+        while (pLoc.getLocation() == Location.IN
+                || pLoc.getLocation() == Location.EDGE) {
+            HistoryEvent he= pLoc.getTriangle().event;
+            if (he == null) return pLoc;
+            pLoc= he.select(p);
+        }
+        return pLoc;
+    }
+
+    /** Return a PointLocation for p found by walking from this Triangle
+     * across SharedEdges toward p. The PointLocation will be on an innermost
+     * Triangle, or OUT if p is outside of the triangulation.
+     *
+     * Precondition: this is an innermost Triangle of a Delaunay
+     * triangulation, which guarantees that the walk terminates. */
+    public PointLocation walk(Point p) {
+        Triangle t= this;
+        while (true) {
+            long[] w= t.weights(p);
+            int i= 0;
+            while (i < 3 && w[i] >= 0)
+                ++i;
+            if (i == 3) return t.pointLocation(p, w);
+
+            // p is beyond the edge opposite vs[i]; step across it
+            SharedEdge e= t.edgeOpposite(t.vs[i]);
+            if (e == null) return PointLocation.makeOut();
+            t= e.t1() == t ? e.t2() : e.t1();
+        }
+    }
+
+    /** Return the Barycentric weights of p in this Triangle, scaled by |detT|
+     * so that they are exact. w[i] < 0 iff p is beyond the edge opposite
+     * vs[i], and w[i] = 0 iff p is on the line through that edge. */
+    private long[] weights(Point p) {
+        long w0= Predicates.orient(p.x, p.y, vs[1].x, vs[1].y, vs[2].x, vs[2].y);
+        long w1= Predicates.orient(p.x, p.y, vs[2].x, vs[2].y, vs[0].x, vs[0].y);
+        long w2= detT - w0 - w1;
+        if (detT < 0)
+            return new long[] { -w0, -w1, -w2 };
+        return new long[] { w0, w1, w2 };
+    }
+
+    /** Return the SharedEdge of this Triangle opposite vertex v, or null if
+     * that edge is unshared. Precondition: v is a vertex of this Triangle. */
+    private SharedEdge edgeOpposite(Point v) {
+        for (SharedEdge e : es) {
+            if (e != null && !e.contains(v))
+                return e;
         }
+        return null;
+    }
+
+    /** Return an innermost Triangle covering part of this Triangle, found
+     * by following the first Triangle of each HistoryEvent. */
+    public Triangle innermost() {
+        Triangle t= this;
+        while (t.event != null)
+            t= t.event.first();
+        return t;
     }
 
     /** Return a 3-element Point array a where p is a[0] and the
@@ -295,11 +337,48 @@ public class Triangle {
         return new Point[] { vs[i], vs[(i + 1) % 3], vs[(i + 2) % 3] };
     }
 
-    /** Add this Triangle's UEdges to the given Set, only.
-     * Precondition: edges is a mutable set. */
-    public void addUEdgesToSet(Set<UEdge> edges) {
-        for (int i= 0; i != 3; ++i)
-            edges.add(new UEdge(vs[i], vs[(i + 1) % 3]));
+    /** Add every innermost Triangle of the triangulation that this innermost
+     * Triangle belongs to to mesh m, in which each vertex v is vertex number
+     * index.get(v), pairing the half-edges of each SharedEdge. The
+     * Triangles are found by a single traversal across SharedEdges.
+     *
+     * Precondition: m has no triangles. */
+    void copyTo(Mesh m, Map<Point, Integer> index) {
+        // meshEdge marks the Triangles already added
+        ArrayDeque<Triangle> queue= new ArrayDeque<Triangle>();
+        addTo(m, index);
+        queue.add(this);
+        while (!queue.isEmpty()) {
+            Triangle t= queue.remove();
+            for (SharedEdge e : t.es) {
+                if (e == null) continue;
+                Triangle u= e.t1() == t ? e.t2() : e.t1();
+                if (u.meshEdge == -1) {
+                    u.addTo(m, index);
+                    queue.add(u);
+                }
+                int a= index.get(e.p1()), b= index.get(e.p2());
+                m.link(halfEdge(m, t.meshEdge, a, b),
+                        halfEdge(m, u.meshEdge, a, b));
+            }
+        }
+    }
+
+    /** Add this Triangle to mesh m, in which each vertex v of this Triangle
+     * is vertex number index.get(v), and remember its first half-edge. */
+    private void addTo(Mesh m, Map<Point, Integer> index) {
+        int a= index.get(vs[0]), b= index.get(vs[1]), c= index.get(vs[2]);
+        meshEdge= detT > 0 ? m.addTriangle(a, b, c) : m.addTriangle(a, c, b);
+    }
+
+    /** Return the half-edge of the triangle with first half-edge h in m that
+     * joins vertices a and b, in either direction.
+     * Precondition: the triangle has such a half-edge. */
+    private static int halfEdge(Mesh m, int h, int a, int b) {
+        while (m.origin(h) != a && m.origin(h) != b
+                || m.dest(h) != a && m.dest(h) != b)
+            ++h;
+        return h;
     }
 
     /** Return this Triangle's three vertices, delimited by hyphens. */
@@ -341,25 +420,24 @@ public class Triangle {
             far= edge.unsharedVertex(outer);
         }
 
-        /** Return true iff this Quad satisfies the Delaunay condition. */
+        /** Return true iff this Quad satisfies the Delaunay condition, i.e.
+         * far is not strictly inside the circumcircle of inner. */
         private boolean isDelaunay() {
-            return inner.angle(add) + outer.angle(far) <= Math.PI;
+            Point[] a= inner.vs;
+            int in= Predicates.inCircle(a[0].x, a[0].y, a[1].x, a[1].y, a[2].x,
+                    a[2].y, far.x, far.y);
+            return (inner.detT > 0 ? in : -in) <= 0;
         }
 
         /*** If needed, flips this bad edge, creating two new Triangles and adding new
          * possibly bad edges to the flip queue. Otherwise, does nothing. */
-        public void flipBadSharedEdge(Queue<Quad> queue, Set<Triangle> ts) {
+        public void flipBadSharedEdge(Queue<Quad> queue) {
             if (isDelaunay()) return;
 
             // switch the shared and unshared Points
             Triangle flip1= new Triangle(add, far, edge.p1());
             Triangle flip2= new Triangle(add, far, edge.p2());
 
-            ts.remove(inner);
-            ts.remove(outer);
-            ts.add(flip1);
-            ts.add(flip2);
-
             // make an event for this flip
             inner.event= new HistoryEvent(new Triangle[] { flip1, flip2 });
             outer.event= inner.event;
@@ -0,0 +1,30 @@
+package generation;
+
+import java.awt.Point;
+import java.util.Iterator;
+
+/** An engine that computes Delaunay triangulations for a
+ * DelaunayTriangulation.
+ *
+ * Every engine triangulates the given Points together with the three
+ * vertices of a bounding Triangle that contains all of them, building the
+ * result into a Mesh. For Points in general position, i.e. no three
+ * collinear and no four cocircular, the result is unique, so every engine
+ * builds the same vertices and triangles. Where four or more Points lie on a
+ * common circle, engines (and the settings of one engine) may triangulate
+ * them differently, so the toString of an engine names it and every
+ * setting that can change what it builds. */
+public interface Triangulator {
+
+	/** Triangulate the Points of pts that lie inside the outer Triangle of
+	 * mesh into mesh. Add each Point that becomes a vertex to mesh as soon as
+	 * it is accepted, so that vertices are numbered in the order accepted.
+	 *
+	 * Points that are outside of the outer Triangle, equal to one of its
+	 * vertices, or equal to an earlier Point are omitted. pts may read mesh
+	 * (e.g. to stop at a given size). n is the expected number of Points, or
+	 * 0 if unknown.
+	 *
+	 * Precondition: mesh holds only its outer Triangle. */
+	public void triangulate(Iterator<Point> pts, int n, Mesh mesh);
+}
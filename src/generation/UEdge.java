@@ -1,7 +1,6 @@
 package generation;
 
 import java.awt.Point;
-import java.util.Objects;
 
 /**\ An instance is a unique undirected edge between two points.
  * Uniqueness: the segment (p1, p2) equals (p2, p1) for all Points. */
@@ -54,7 +53,9 @@ public class UEdge {
 		return p1 == seg.p1  &&  p2 == seg.p2;
 	}
 
+	/** Return the same hash code as Objects.hash(p1, p2), without
+	 * allocating an array for the arguments. */
 	@Override public int hashCode() {
-		return Objects.hash(p1, p2);
+		return 31 * (31 + p1.hashCode()) + p2.hashCode();
 	}
 }
@@ -0,0 +1,219 @@
+package generation;
+
+import java.util.Arrays;
+
+/** An instance is the Voronoi diagram of the vertices of a Mesh, built as
+ * the dual of the triangulation: the corners of the cell of a vertex v are
+ * the circumcenters of the triangles around v, and the cells of v and w
+ * share a side iff v and w share an edge. Like Mesh, it numbers vertices
+ * and stores everything in int and double arrays.
+ *
+ * The vertices of the outer Triangle have cells too, so the cell of every
+ * other vertex is a closed convex polygon, unless the vertex lies on the
+ * boundary of the outer Triangle. A removed vertex has an empty cell.
+ *
+ * An instance is immutable: it is a snapshot of the Mesh at the time it was
+ * built, and is safe to share between threads. */
+public final class Voronoi {
+	/* The coordinates of each vertex. */
+	private final int[] xs, ys;
+
+	/* The circumcenter of each triangle of the Mesh. */
+	private final double[] cx, cy;
+
+	/* The corners of the cell of v are the circumcenters of the triangles
+	 * corner[firstCorner[v] .. firstCorner[v + 1] - 1], counterclockwise. */
+	private final int[] firstCorner, corner;
+
+	/* The neighbors of v are neighbor[firstNeighbor[v] .. firstNeighbor[v +
+	 * 1] - 1], counterclockwise; corner i of v lies between neighbors i and
+	 * i + 1. */
+	private final int[] firstNeighbor, neighbor;
+
+	/* A coarse grid of buckets over the bounding box of the vertices other
+	 * than those of the outer Triangle, each holding one vertex in it or
+	 * -1, from which the walk to a point in the bucket starts. */
+	private final int size, left, bottom, width, height;
+	private final int[] cells;
+
+	/* A vertex other than those of the outer Triangle; -1 if none. */
+	private final int any;
+
+	/** Constructor: the Voronoi diagram of the vertices of m. */
+	Voronoi(Mesh m) {
+		int n= m.vertexCount();
+		xs= new int[n];
+		ys= new int[n];
+		for (int v= 0; v != n; ++v) {
+			xs[v]= m.x(v);
+			ys[v]= m.y(v);
+		}
+
+		// the circumcenter of each triangle, computed relative to its first
+		// vertex
+		int t= m.halfEdgeCount() / 3;
+		cx= new double[t];
+		cy= new double[t];
+		for (int i= 0; i != t; ++i) {
+			int a= m.origin(3 * i), b= m.origin(3 * i + 1);
+			int c= m.origin(3 * i + 2);
+			double bx= xs[b] - xs[a], by= ys[b] - ys[a];
+			double qx= xs[c] - xs[a], qy= ys[c] - ys[a];
+			double d= 2.0 * Predicates.orient(xs[a], ys[a], xs[b], ys[b], xs[c],
+				ys[c]);
+			double b2= bx * bx + by * by, q2= qx * qx + qy * qy;
+			cx[i]= xs[a] + (qy * b2 - by * q2) / d;
+			cy[i]= ys[a] + (bx * q2 - qx * b2) / d;
+		}
+
+		// a half-edge out of each vertex, preferring one with no twin so
+		// that a turn counterclockwise from it meets every triangle
+		int[] out= new int[n];
+		Arrays.fill(out, -1);
+		for (int e= 0; e != m.halfEdgeCount(); ++e) {
+			int v= m.origin(e);
+			if (out[v] == -1 || m.twin(e) == -1) out[v]= e;
+		}
+
+		firstCorner= new int[n + 1];
+		firstNeighbor= new int[n + 1];
+		corner= new int[m.halfEdgeCount()];
+		neighbor= new int[m.halfEdgeCount() + n];
+		int cs= 0, ns= 0;
+		for (int v= 0; v != n; ++v) {
+			firstCorner[v]= cs;
+			firstNeighbor[v]= ns;
+			int e= out[v];
+			if (e == -1) continue;
+
+			// v has no twinless half-edge out of it unless it lies on the
+			// boundary, in which case the last neighbor closes the fan
+			int f= e;
+			do {
+				corner[cs++]= f / 3;
+				neighbor[ns++]= m.dest(f);
+				int g= m.prev(f);
+				f= m.twin(g);
+				if (f == -1) neighbor[ns++]= m.origin(g);
+			} while (f != -1 && f != e);
+		}
+		firstCorner[n]= cs;
+		firstNeighbor[n]= ns;
+
+		// the grid of starting vertices, about 2 vertices per bucket
+		int l= Integer.MAX_VALUE, b= Integer.MAX_VALUE;
+		int r= Integer.MIN_VALUE, tp= Integer.MIN_VALUE;
+		int live= 0, some= -1;
+		for (int v= Mesh.OUTER; v != n; ++v) {
+			if (m.isRemoved(v)) continue;
+			l= Math.min(l, xs[v]);
+			b= Math.min(b, ys[v]);
+			r= Math.max(r, xs[v]);
+			tp= Math.max(tp, ys[v]);
+			++live;
+			some= v;
+		}
+		any= some;
+		size= Math.max(1, (int) Math.sqrt(live / 2));
+		left= l;
+		bottom= b;
+		width= Math.max(1, r - l + 1);
+		height= Math.max(1, tp - b + 1);
+		cells= new int[size * size];
+		Arrays.fill(cells, -1);
+		for (int v= Mesh.OUTER; v != n; ++v) {
+			if (!m.isRemoved(v)) cells[cell(xs[v], ys[v])]= v;
+		}
+	}
+
+	/** Return the number of vertices, as in the Mesh. */
+	public int vertexCount() {
+		return xs.length;
+	}
+
+	/** Return the number of corners of the cell of vertex v. */
+	public int cornerCount(int v) {
+		return firstCorner[v + 1] - firstCorner[v];
+	}
+
+	/** Return the x coordinate of corner i of the cell of vertex v, where
+	 * the corners are numbered 0 .. cornerCount(v) - 1 counterclockwise. */
+	public double cornerX(int v, int i) {
+		return cx[corner[firstCorner[v] + i]];
+	}
+
+	/** Return the y coordinate of corner i of the cell of vertex v. */
+	public double cornerY(int v, int i) {
+		return cy[corner[firstCorner[v] + i]];
+	}
+
+	/** Return the number of vertices whose cells share a side with the cell
+	 * of vertex v. It is cornerCount(v), or one more if the cell is not
+	 * closed. */
+	public int neighborCount(int v) {
+		return firstNeighbor[v + 1] - firstNeighbor[v];
+	}
+
+	/** Return neighbor i of vertex v, where the neighbors are numbered
+	 * 0 .. neighborCount(v) - 1 counterclockwise. The side of the cell of v
+	 * between corners i - 1 and i is shared with neighbor i. It may be a
+	 * vertex of the outer Triangle (see Mesh.isOuter). */
+	public int neighbor(int v, int i) {
+		return neighbor[firstNeighbor[v] + i];
+	}
+
+	/** Return the vertex nearest to (x, y) other than the vertices of the
+	 * outer Triangle, i.e. the one whose cell contains (x, y), or -1 if
+	 * there is none.
+	 *
+	 * It walks from a vertex near (x, y) to a neighbor nearer to (x, y) until
+	 * there is none, which in a Delaunay triangulation ends at the nearest
+	 * vertex. Only a point far outside of the vertices can be nearer to the
+	 * outer Triangle, in which case every vertex is checked. */
+	public int nearest(double x, double y) {
+		if (any == -1) return -1;
+		int v= cells[cell((int) x, (int) y)];
+		if (v == -1) v= any;
+		double d= distance2(v, x, y);
+		while (true) {
+			int next= v;
+			for (int i= firstNeighbor[v]; i != firstNeighbor[v + 1]; ++i) {
+				double dw= distance2(neighbor[i], x, y);
+				if (dw < d) {
+					next= neighbor[i];
+					d= dw;
+				}
+			}
+			if (next == v) break;
+			v= next;
+		}
+		if (!Mesh.isOuter(v)) return v;
+
+		v= any;
+		d= distance2(v, x, y);
+		for (int w= Mesh.OUTER; w != xs.length; ++w) {
+			double dw= distance2(w, x, y);
+			if (dw < d && firstNeighbor[w] != firstNeighbor[w + 1]) {
+				v= w;
+				d= dw;
+			}
+		}
+		return v;
+	}
+
+	/** Return the square of the distance from vertex v to (x, y). */
+	private double distance2(int v, double x, double y) {
+		double dx= xs[v] - x, dy= ys[v] - y;
+		return dx * dx + dy * dy;
+	}
+
+	/** Return the index of the bucket containing (px, py), clamping it into
+	 * the bounding box. */
+	private int cell(int px, int py) {
+		int i= (int) (((long) px - left) * size / width);
+		int j= (int) (((long) py - bottom) * size / height);
+		i= Math.min(size - 1, Math.max(0, i));
+		j= Math.min(size - 1, Math.max(0, j));
+		return j * size + i;
+	}
+}
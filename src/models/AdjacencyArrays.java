@@ -0,0 +1,178 @@
+package models;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/** An instance is the graph of a Board in compressed sparse row form: for
+ * each Node, by id, a run of consecutive slots, one per exit, each holding
+ * the id of the Node at the other end, the length of the Edge and the id of
+ * the Edge. Edges are numbered 0..m-1 in the iteration order of the Board's
+ * set of Edges, and the slots of a Node follow the iteration order of its
+ * exits, so a walk over an instance visits the graph in the same order as
+ * one over Nodes and Edges, but touches only a few int arrays and creates
+ * no objects.
+ *
+ * The slots of Node v are start(v) .. end(v) - 1:
+ *
+ *     for (int i= g.start(v); i != g.end(v); ++i)
+ *         visit(g.neighbor(i), g.length(i));
+ *
+ * An instance is a snapshot of the Board when it was built; it does not
+ * change with the Board. */
+public final class AdjacencyArrays {
+	/* The slots of Node v are offsets[v] .. offsets[v + 1] - 1. */
+	private final int[] offsets;
+
+	/* For each slot, the id of the neighbor, the length of the Edge to it
+	 * and the id of that Edge. */
+	private final int[] neighbors, lengths, edgeIds;
+
+	/* The Edges, by id. */
+	private final Edge[] edges;
+
+	/** Constructor: the graph of the Nodes ns, indexed by id, and the Edges
+	 * es, which join them.
+	 * Precondition: ns holds Node i at index i, and every exit of every Node
+	 * of ns is in es. */
+	AdjacencyArrays(Node[] ns, Set<Edge> es) {
+		edges= es.toArray(new Edge[0]);
+		for (int e= 0; e != edges.length; ++e)
+			edges[e].id= e;
+
+		offsets= new int[ns.length + 1];
+		for (int v= 0; v != ns.length; ++v)
+			offsets[v + 1]= offsets[v] + ns[v].exits().size();
+		neighbors= new int[offsets[ns.length]];
+		lengths= new int[neighbors.length];
+		edgeIds= new int[neighbors.length];
+		for (int v= 0; v != ns.length; ++v) {
+			int i= offsets[v];
+			for (Edge e : ns[v].exits()) {
+				Node w= e.firstExit() == ns[v] ? e.secondExit() : e.firstExit();
+				neighbors[i]= w.id();
+				lengths[i]= e.length;
+				edgeIds[i]= e.id;
+				++i;
+			}
+		}
+	}
+
+	/** Return the number of Nodes. */
+	public int nodeCount() {
+		return offsets.length - 1;
+	}
+
+	/** Return the number of Edges. */
+	public int edgeCount() {
+		return edges.length;
+	}
+
+	/** Return the first slot of Node v. */
+	public int start(int v) {
+		return offsets[v];
+	}
+
+	/** Return the slot after the last slot of Node v. */
+	public int end(int v) {
+		return offsets[v + 1];
+	}
+
+	/** Return the number of exits of Node v. */
+	public int degree(int v) {
+		return offsets[v + 1] - offsets[v];
+	}
+
+	/** Return the id of the Node at the other end of slot i. */
+	public int neighbor(int i) {
+		return neighbors[i];
+	}
+
+	/** Return the length of the Edge of slot i. */
+	public int length(int i) {
+		return lengths[i];
+	}
+
+	/** Return the id of the Edge of slot i. */
+	public int edgeId(int i) {
+		return edgeIds[i];
+	}
+
+	/** Return the Edge with id e. */
+	public Edge edge(int e) {
+		return edges[e];
+	}
+
+	/** Return the length of a shortest path from Node s to each Node, by
+	 * id, or Integer.MAX_VALUE for a Node that cannot be reached from s. It
+	 * uses Dijkstra's algorithm and takes O(m log m) time. */
+	public int[] distancesFrom(int s) {
+		return distancesFrom(s, -1, null);
+	}
+
+	/** Return distancesFrom(s), but stop once Node t is reached if t is not
+	 * -1; then only t and the Nodes nearer s than t are sure to have their
+	 * distances. If prev is not null, set prev[v] to the Node before each
+	 * Node v on the shortest path found from s to v, and to -1 for s and for
+	 * each Node not reached.
+	 * Precondition: prev is null or has nodeCount() elements. */
+	public int[] distancesFrom(int s, int t, int[] prev) {
+		if (prev != null) Arrays.fill(prev, -1);
+		int[] dist= new int[nodeCount()];
+		Arrays.fill(dist, Integer.MAX_VALUE);
+		dist[s]= 0;
+
+		// a min-heap of (distance << 32 | id), with a Node pushed again
+		// whenever its distance falls; stale entries are skipped when polled
+		long[] heap= new long[Math.max(1, nodeCount())];
+		int size= 0;
+		heap[size++]= s;
+		while (size != 0) {
+			long top= heap[0];
+			heap[0]= heap[--size];
+			siftDown(heap, size);
+			int v= (int) top;
+			int d= (int) (top >>> 32);
+			if (d != dist[v]) continue;
+			if (v == t) break;
+
+			for (int i= offsets[v]; i != offsets[v + 1]; ++i) {
+				int w= neighbors[i];
+				int dw= d + lengths[i];
+				if (dw < dist[w]) {
+					dist[w]= dw;
+					if (prev != null) prev[w]= v;
+					if (size == heap.length)
+						heap= Arrays.copyOf(heap, 2 * heap.length);
+					heap[size]= (long) dw << 32 | w;
+					siftUp(heap, size++);
+				}
+			}
+		}
+		return dist;
+	}
+
+	/** Move heap[k] up min-heap heap to its place. */
+	static void siftUp(long[] heap, int k) {
+		long x= heap[k];
+		while (k > 0 && heap[(k - 1) / 2] > x) {
+			heap[k]= heap[(k - 1) / 2];
+			k= (k - 1) / 2;
+		}
+		heap[k]= x;
+	}
+
+	/** Move heap[0] down min-heap heap[0..size-1] to its place. */
+	static void siftDown(long[] heap, int size) {
+		if (size == 0) return;
+		long x= heap[0];
+		int k= 0;
+		while (2 * k + 1 < size) {
+			int c= 2 * k + 1;
+			if (c + 1 < size && heap[c + 1] < heap[c]) ++c;
+			if (heap[c] >= x) break;
+			heap[k]= heap[c];
+			k= c;
+		}
+		heap[k]= x;
+	}
+}
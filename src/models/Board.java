@@ -1,13 +1,17 @@
 package models;
 
 import generation.DelaunayTriangulation;
-import generation.UEdge;
-import util.Paths;
+import generation.HalfEdgeTriangulator;
+import generation.LongHashSet;
+import generation.Mesh;
+import generation.PointSource;
+import generation.Subgraph;
+import generation.Triangulator;
+import generation.Voronoi;
+import models.BoardBuildStats.Stage;
 import util.Util;
 
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Queue;
 import java.util.Set;
 import java.util.Random;
 import java.awt.Point;
@@ -20,8 +24,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Deque;
-import java.util.HashMap;
+import java.util.List;
 
 /** A Board represents the physical layout of a game: it tracks Nodes,
  * Edges, and size of the map. Boards are randomly generated from a seed. */
@@ -36,11 +39,12 @@ public class Board {
 	/* The target Node that must be reached during the rescue stage. */
 	private Node target;
 
-	/* The distance of the Node furthest from the target. */
-	private double furthestNodeDistance;
+	/* The distance of the Node furthest from the target; -1 until needed. */
+	private double furthestNodeDistance= -1;
 
-	/* The minimum traveled distance from Earth to the target. */
-	private int distanceToTarget;
+	/* The minimum traveled distance from Earth to the target; -1 until
+	 * needed. */
+	private int distanceToTarget= -1;
 
 	/* The set of all Edges on this Board. */
 	private Set<Edge> edges;
@@ -48,33 +52,75 @@ public class Board {
 	/* The NodeProximityTree of all Nodes on this Board. */
 	private NodeProximityGrid nodes;
 
+	/* All Nodes on this Board, indexed by id (ids are 0..n-1). */
+	private Node[] byId;
+
+	/* The graph of the Nodes and Edges in compressed sparse row form. */
+	private AdjacencyArrays csr;
+
+	/* Landmark distances between Nodes; null if not wanted. */
+	private DistanceOracle oracle;
+
+	/* The Voronoi diagram of the Nodes, and the Node of each of its
+	 * vertices (null for the outer Triangle), used to find closest Nodes;
+	 * null until needed in a Board read from a snapshot. */
+	private Voronoi voronoi;
+	private Node[] vToN;
+
 	/* The dimensions of this Board, which is a rectangle. */
 	private int width;
 	private int height;
 
-	/* The total sum of the edge weights on this Board. */
-	private int sumEdges;
+	/* The total sum of the edge weights on this Board; -1 until needed. */
+	private int sumEdges= -1;
+
+	/* The time and allocation of each stage of building this Board. */
+	private final BoardBuildStats stats= new BoardBuildStats();
+
+	/* The number of exits of each Node, by id, and of Edges of this Board
+	 * before they were trimmed. They fix the iteration order of the sets
+	 * that hold them, which a snapshot must reproduce (see BoardSnapshot). */
+	private int[] untrimmedExits;
+	private int untrimmedEdges;
 
 	/** Constructor: a rectangular Board generated via RNG with seed s. There
 	 * are many Board generation parameters here explained in the Builder. */
 	private Board(int w, int h, long s, int minNodes, int maxNodes, int minGems,
-		int maxGems) {
+		int maxGems, Triangulator engine, Subgraph subgraph,
+		PointSource source) {
+		stats.begin();
 		width= w;
 		height= h;
 		seed= s;
 		Random r= new Random(s);
 		int np= r.nextInt(maxNodes - minNodes + 1) + minNodes;
-		DelaunayTriangulation dt= new DelaunayTriangulation(np, r, w, h);
-
-		// convert Points to Nodes, mapping each Point to its corresponding Node
-		HashMap<Point, Node> pToN = new HashMap<Point, Node>();
-		nodes= new NodeProximityGrid(0, 0, w, h);
-		Queue<String> names= planetNames(r); // shuffled list of planet names
+		stats.end(Stage.SETUP);
+		DelaunayTriangulation dt= new DelaunayTriangulation(np, r, w, h, engine,
+			source);
+		stats.end(Stage.TRIANGULATION);
+
+		// convert vertices to Nodes. They get ids in the order in which a
+		// HashSet of their Points, added as they were drawn, iterates them,
+		// as Boards always have, so that a seed gives the same Board as before
+		Mesh mesh= dt.mesh();
+		vToN= new Node[mesh.vertexCount()];
+		byId= new Node[mesh.vertexCount() - Mesh.OUTER];
+		int[] hashes= new int[byId.length];
+		for (int v= Mesh.OUTER; v != mesh.vertexCount(); ++v)
+			hashes[v - Mesh.OUTER]= pointHash(mesh, v);
+		int[] byHash= Util.hashOrder(hashes, byId.length);
+		nodes= new NodeProximityGrid(0, 0, w, h, byId.length);
+		String[] names= planetNames();
+		int[] order= shuffle(names.length, r); // order in which names are used
+		stats.end(Stage.NAMES);
+		int next= 0; // index in order of the next name
 		int id= 0; // id of each planet
-		int targetId= r.nextInt(dt.getVertices().size() - 1) + 1;
+		int targetId= r.nextInt(mesh.vertexCount() - Mesh.OUTER - 1) + 1;
 
-		for (Point p : dt.getVertices()) {
-			Node n= new Node.NodeBuilder().pos(p.x, p.y).name(names.peek()).id(id)
+		for (int i : byHash) {
+			int v= i + Mesh.OUTER;
+			Node n= new Node.NodeBuilder().pos(mesh.x(v), mesh.y(v))
+				.name(planetName(names, order, next)).id(id)
 				.gems(gems(r, minGems, maxGems)).build();
 			if (id == 0) {
 				n.name= Util.EARTH_NAME;
@@ -85,38 +131,121 @@ public class Board {
 				n.gems= 0;
 				target= n;
 			} else {
-				names.remove();
+				++next;
 			}
+			byId[id]= n;
 			++id;
 			nodes.addNode(n);
-			pToN.put(p, n);
+			vToN[v]= n;
 		}
-
-		// add the edges
-		edges= new HashSet<Edge>();
-		for (UEdge ue : dt.getEdges()) {
-			Node n1= pToN.get(ue.p1());
-			Node n2= pToN.get(ue.p2());
+		stats.end(Stage.NODES);
+
+		// add the edges of subgraph, once per pair of half-edges, leaving out
+		// the outer Triangle. They are added in the order in which a HashSet
+		// of the UEdges of all edges of the triangulation iterates them, as
+		// they always have been, since that order decides which are trimmed
+		boolean[] keep= subgraph.edges(mesh);
+		int all= 0, kept= 0;
+		for (int he= 0; he != mesh.halfEdgeCount(); ++he) {
+			int v1= mesh.origin(he), v2= mesh.dest(he);
+			if (v1 < v2 || mesh.twin(he) == -1) ++all;
+			if (keep[he] && v1 < v2) ++kept;
+		}
+		int[] halfEdges= new int[kept];
+		hashes= new int[kept];
+		for (int he= 0, k= 0; he != mesh.halfEdgeCount(); ++he) {
+			if (keep[he] && mesh.origin(he) < mesh.dest(he)) {
+				halfEdges[k]= he;
+				hashes[k++]= uEdgeHash(mesh, mesh.origin(he), mesh.dest(he));
+			}
+		}
+		// the set is made as big as adding the Edges one by one would make
+		// it, so it has the same iteration order without being rehashed
+		edges= new HashSet<Edge>(Util.hashCapacity(kept));
+		for (int k : Util.hashOrder(hashes, all)) {
+			int v1= mesh.origin(halfEdges[k]), v2= mesh.dest(halfEdges[k]);
+			if (!isFirst(mesh, v1, v2)) {
+				int v= v1;
+				v1= v2;
+				v2= v;
+			}
+			Node n1= vToN[v1];
+			Node n2= vToN[v2];
 			Edge e= new Edge(n1, n2);
 			n1.addExit(e);
 			n2.addExit(e);
 			edges.add(e);
 		}
+		stats.end(Stage.EDGES);
+
+		// the Voronoi diagram finds the Node closest to a point
+		voronoi= dt.voronoi();
+		stats.end(Stage.VORONOI);
+
+		untrimmedEdges= edges.size();
+		untrimmedExits= new int[id];
+		for (Node n : nodes)
+			untrimmedExits[n.id()]= n.exits().size();
+
+		// remove an arbitrary amount of edges, while keeping connectivity;
+		// the sparser subgraphs are used as they are
+		if (subgraph == Subgraph.DELAUNAY) trimEdges(r, id);
+		stats.end(Stage.TRIM);
+		csr= new AdjacencyArrays(byId, edges);
+		stats.end(Stage.ADJACENCY);
+
+		// furthestNodeDistance, distanceToTarget and sumEdges are computed
+		// when first needed, which is never for many Boards
+	}
 
-		// remove an arbitrary amount of edges, while keeping connectivity
-		trimEdges(r);
-
-		// set the furthest distance (needed for getPing)
-		double maxDistance= 0;
-		for (Node n : nodes) {
-			double nodeDistance= absoluteDistanceToTarget(n);
-			if (nodeDistance > maxDistance)
-				maxDistance= nodeDistance;
+	/** Constructor: a Board read from a snapshot of a Board with dimensions
+	 * w x h generated with seed s. Its Nodes are ns, indexed by id; its Edges
+	 * are es, in the iteration order of the set of the original, and the
+	 * exits of Node ns[i] are the Edges es[exits[i][0]], es[exits[i][1]],
+	 * ..., in the iteration order of its set. The other parameters are the
+	 * fields they are stored in. */
+	Board(int w, int h, long s, Node[] ns, Edge[] es, int[][] exits,
+		int earthId, int targetId, double furthestNodeDistance,
+		int distanceToTarget, int sumEdges, int[] untrimmedExits,
+		int untrimmedEdges) {
+		width= w;
+		height= h;
+		seed= s;
+		byId= ns;
+		nodes= new NodeProximityGrid(0, 0, w, h, ns.length);
+		for (int i= 0; i != ns.length; ++i) {
+			ns[i].reserveExits(untrimmedExits[i]);
+			for (int e : exits[i])
+				ns[i].addExit(es[e]);
+			nodes.addNode(ns[i]);
 		}
-		furthestNodeDistance = maxDistance;
-		distanceToTarget = Paths.pathWeight(Paths.minPath(earth, target));
+		edges= new HashSet<Edge>(Util.hashCapacity(untrimmedEdges));
+		for (Edge e : es)
+			edges.add(e);
+		csr= new AdjacencyArrays(ns, edges);
+		earth= ns[earthId];
+		target= ns[targetId];
+		this.furthestNodeDistance= furthestNodeDistance;
+		this.distanceToTarget= distanceToTarget;
+		this.sumEdges= sumEdges;
+		this.untrimmedExits= untrimmedExits;
+		this.untrimmedEdges= untrimmedEdges;
+	}
+
+	/** Return the number of Nodes on this Board. */
+	int nodeCount() {
+		return byId.length;
+	}
+
+	/** Return the number of exits Node id had before Edges were trimmed. */
+	int untrimmedExits(int id) {
+		return untrimmedExits[id];
+	}
 
-		sumEdges= sum();
+	/** Return the number of Edges this Board had before they were
+	 * trimmed. */
+	int untrimmedEdges() {
+		return untrimmedEdges;
 	}
 
 	/** Return the sum of the distances on all edges. */
@@ -128,43 +257,45 @@ public class Board {
 		return sum;
 	}
 
-	/** Return the total sum of the edges on this Board. */
-	public int sumEdges() {
+	/** Return the total sum of the edges on this Board. It is computed on
+	 * the first call. */
+	public synchronized int sumEdges() {
+		if (sumEdges == -1)
+			stats.measure(Stage.SUM, () -> sumEdges= sum());
 		return sumEdges;
 	}
 
 	/** Trim the current edge set, removing edges chosen by RNG r.
-	 * The graph will remain connected. */
-	private void trimEdges(Random r) {
-		class NEPair {
-			Node n;
-			Edge e;
-
-			public NEPair(Node node, Edge edge) {
-				n= node;
-				e= edge;
-			}
-		}
-		/* Visited Nodes */
-		Set<Node> visited= new HashSet<Node>();
+	 * The graph will remain connected. n is the number of Nodes. */
+	private void trimEdges(Random r, int n) {
+		/* Visited Nodes, by id */
+		boolean[] visited= new boolean[n];
 
-		/* Nodes to visit and the Edge used to reach them */
-		Deque<NEPair> stack= new LinkedList<NEPair>();
+		/* Nodes to visit and the Edge used to reach each (null for Earth),
+		 * a stack of top entries; each Edge is pushed once from each end */
+		Node[] toVisit= new Node[2 * edges.size() + 1];
+		Edge[] via= new Edge[toVisit.length];
+		int top= 0;
 
 		/* Edges that could be removed */
-		ArrayList<Edge> candidates = new ArrayList<Edge>();
-
-		/* Edges that must be kept to maintain connectivity */
-		Set<Edge> keep= new HashSet<Edge>();
-		stack.push(new NEPair(earth, null));
-		while (!stack.isEmpty()) {
-			NEPair p= stack.pop();
-			if (visited.add(p.n)) {
-				keep.add(p.e);
-				for (Edge e : p.n.exits())
-					stack.push(new NEPair(e.getOther(p.n), e));
-			} else if (!keep.contains(p.e)) {
-				candidates.add(p.e);
+		ArrayList<Edge> candidates = new ArrayList<Edge>(edges.size());
+
+		/* Edges that must be kept to maintain connectivity, by the ids of
+		 * their Nodes */
+		LongHashSet keep= new LongHashSet(n);
+		toVisit[top++]= earth;
+		while (top != 0) {
+			Node v= toVisit[--top];
+			Edge ve= via[top];
+			if (!visited[v.id()]) {
+				visited[v.id()]= true;
+				if (ve != null) keep.add(key(ve));
+				for (Edge e : v.exits()) {
+					toVisit[top]= e.getOther(v);
+					via[top++]= e;
+				}
+			} else if (!keep.contains(key(ve))) {
+				candidates.add(ve);
 			}
 		}
 
@@ -182,15 +313,57 @@ public class Board {
 		}
 	}
 
+	/** Return the hash code of the Point of vertex v of m. */
+	private static int pointHash(Mesh m, int v) {
+		return new Point(m.x(v), m.y(v)).hashCode();
+	}
+
+	/** Return true iff vertex a of m is the end of the edge between a and b
+	 * that its UEdge puts first: the leftmost, then the lowest. */
+	private static boolean isFirst(Mesh m, int a, int b) {
+		return m.x(a) < m.x(b) || (m.x(a) == m.x(b) && m.y(a) < m.y(b));
+	}
+
+	/** Return the hash code of the UEdge of the edge between vertices a and
+	 * b of m. */
+	private static int uEdgeHash(Mesh m, int a, int b) {
+		if (!isFirst(m, a, b)) return uEdgeHash(m, b, a);
+		// equal to Objects.hash of its Points, as in UEdge
+		return 31 * (31 + pointHash(m, a)) + pointHash(m, b);
+	}
+
+	/** Return the key of e in a LongHashSet of Edges. */
+	private static long key(Edge e) {
+		return LongHashSet.edge(e.firstExit().id(), e.secondExit().id());
+	}
+
 	/* Location of files for board generation */
 	private static final String BOARD_GENERATION_DIRECTORY = Util.DIRECTORY
 		+ "/data/board_generation";
 
-	/** Return the planet names listed in planets.txt, shuffled to a
-	 * random order using RNG r.
+	/* The prefix of the catalog names given to planets once the names in
+	 * planets.txt run out. No name there has a digit, so a catalog name is
+	 * never one of them. */
+	private static final String CATALOG_PREFIX= "PX-";
+
+	/* The planet names listed in planets.txt; null until needed. Never
+	 * modified once read. */
+	private static String[] planetNames;
+
+	/** Return the name of the planet named next-th (from 0) using names in
+	 * order: names[order[next]] or, once names run out, a catalog name that
+	 * no other planet has. */
+	private static String planetName(String[] names, int[] order, int next) {
+		if (next < names.length) return names[order[next]];
+		return CATALOG_PREFIX + (next - names.length + 1);
+	}
+
+	/** Return the planet names listed in planets.txt, which are read once.
 	 * 
 	 * Precondition: planets.txt is in BOARD_GENERATION_DIRECTORY. */
-	private static Queue<String> planetNames(Random r) {
+	private static synchronized String[] planetNames() {
+		if (planetNames != null) return planetNames;
+
 		File f= new File(BOARD_GENERATION_DIRECTORY + "/planets.txt");
 		BufferedReader reader;
 		try {
@@ -198,7 +371,7 @@ public class Board {
 		} catch (FileNotFoundException e) {
 			throw new UncheckedIOException("Cannot find planets.txt", e);
 		}
-		LinkedList<String> names= new LinkedList<String>();
+		ArrayList<String> names= new ArrayList<String>();
 		try {
 			String line;
 			while ((line= reader.readLine()) != null) {
@@ -210,8 +383,24 @@ public class Board {
 		} catch (IOException e) {
 			throw new UncheckedIOException("Error reading planets.txt", e);
 		}
-		Collections.shuffle(names, r);
-		return names;
+		planetNames= names.toArray(new String[names.size()]);
+		return planetNames;
+	}
+
+	/** Return 0 .. n - 1 shuffled to a random order using RNG r, with the
+	 * same calls to r and the same result as Collections.shuffle on a list
+	 * of n elements. */
+	private static int[] shuffle(int n, Random r) {
+		int[] order= new int[n];
+		for (int i= 0; i != n; ++i)
+			order[i]= i;
+		for (int i= n; i > 1; --i) {
+			int j= r.nextInt(i);
+			int k= order[i - 1];
+			order[i - 1]= order[j];
+			order[j]= k;
+		}
+		return order;
 	}
 
 	/** Return a random amount of gems set by the constraints min and max.
@@ -233,7 +422,7 @@ public class Board {
 	 * The returned value d satisfies 0 <= d <= 1. If d = 1, n is the target
 	 * node. If d = 0, n is the node furthest from the target node. */
 	public double signal(Node n) {
-		return 1.0 - absoluteDistanceToTarget(n) / furthestNodeDistance;
+		return 1.0 - absoluteDistanceToTarget(n) / furthestNodeDistance();
 	}
 
 	/** Return the absolute distance from n to the target. */
@@ -250,18 +439,55 @@ public class Board {
 	/** Return the closest Node to the given Point, or null if
 	 * there are no Nodes. */
 	public Node closestNode(Point2D p) {
-		return nodes.closestNode(p);
+		if (voronoi == null) triangulateNodes();
+		int v= voronoi.nearest(p.getX(), p.getY());
+		return v == -1 ? null : vToN[v];
+	}
+
+	/** Set voronoi and vToN from the Nodes, triangulated as when this Board
+	 * was generated: in order of id, within the same outer Triangle. */
+	private void triangulateNodes() {
+		List<Point> pts= new ArrayList<Point>(byId.length);
+		for (Node n : byId)
+			pts.add(new Point(n.x(), n.y()));
+		DelaunayTriangulation dt= new DelaunayTriangulation(pts.iterator(),
+			new Point(0, 0), new Point(width, height));
+		vToN= new Node[dt.mesh().vertexCount()];
+		System.arraycopy(byId, 0, vToN, Mesh.OUTER, byId.length);
+		voronoi= dt.voronoi();
+	}
+
+	/** Return the graph of this Board in compressed sparse row form, in
+	 * which Nodes and Edges are numbered by id. */
+	public AdjacencyArrays csr() {
+		return csr;
+	}
+
+	/** Return the time and allocation of each stage of building this Board.
+	 * A Board read from a snapshot has only the SNAPSHOT stage. */
+	public BoardBuildStats buildStats() {
+		return stats;
+	}
+
+	/** Return the DistanceOracle of this Board, or null if it was built
+	 * without one (see BoardBuilder.landmarks). */
+	public DistanceOracle distanceOracle() {
+		return oracle;
 	}
 
 	/** Return the Node with ID id in this board if it exists,
-	 * null otherwise. */
+	 * null otherwise. It takes constant time. */
 	public Node getNode(int id) {
-		for (Node n : nodes) {
-			if (n.id() == id)
-				return n;
-		}
+		return 0 <= id && id < byId.length ? byId[id] : null;
+	}
 
-		return null;
+	/** Return the Nodes with IDs ids in this board, in the same order; an
+	 * element is null where there is no Node with that ID. */
+	public Node[] getNodes(int... ids) {
+		Node[] ns= new Node[ids.length];
+		for (int i= 0; i != ids.length; ++i)
+			ns[i]= getNode(ids[i]);
+		return ns;
 	}
 
 	/** Return the starting Earth Node. */
@@ -279,8 +505,20 @@ public class Board {
 		return Collections.unmodifiableSet(edges);
 	}
 
-	/** Return the distance from the target Node to its furthest Node. */
-	public double furthestNodeDistance() {
+	/** Return the distance from the target Node to its furthest Node. It is
+	 * computed on the first call. */
+	public synchronized double furthestNodeDistance() {
+		if (furthestNodeDistance == -1) {
+			stats.measure(Stage.FURTHEST, () -> {
+				double maxDistance= 0;
+				for (Node n : nodes) {
+					double nodeDistance= absoluteDistanceToTarget(n);
+					if (nodeDistance > maxDistance)
+						maxDistance= nodeDistance;
+				}
+				furthestNodeDistance= maxDistance;
+			});
+		}
 		return furthestNodeDistance;
 	}
 
@@ -294,8 +532,15 @@ public class Board {
 		return height;
 	}
 
-	/** Return the min traveled distance between the target and Earth. */
-	public int distanceToTarget() {
+	/** Return the min traveled distance between the target and Earth. It is
+	 * computed, by a search of the whole Board, on the first call. */
+	public synchronized int distanceToTarget() {
+		if (distanceToTarget == -1) {
+			stats.measure(Stage.DISTANCE, () -> {
+				int d= csr.distancesFrom(earth.id())[target.id()];
+				distanceToTarget= d == Integer.MAX_VALUE ? 0 : d;
+			});
+		}
 		return distanceToTarget;
 	}
 
@@ -308,6 +553,11 @@ public class Board {
 		private Long seed;
 		private Integer minNodes, maxNodes;
 		private Integer minGems, maxGems;
+		private Triangulator engine= new HalfEdgeTriangulator();
+		private Subgraph subgraph= Subgraph.DELAUNAY;
+		private PointSource source= PointSource.UNIFORM;
+		private File snapshots;
+		private int landmarks;
 
 		/** Set the dimensions (width x height) of this  Board. */
 		public BoardBuilder size(int width, int height) {
@@ -336,15 +586,101 @@ public class Board {
 			return this;
 		}
 
+		/** Set the engine that triangulates the Nodes of this Board into
+		 * candidate Edges. Every engine yields the same Board for a seed, up to
+		 * ties among four or more Nodes on a common circle. */
+		public BoardBuilder triangulator(Triangulator engine) {
+			this.engine= engine;
+			return this;
+		}
+
+		/** Set the subgraph of the triangulation of the Nodes whose edges this
+		 * Board has. DELAUNAY (the default) has a random number of its edges
+		 * trimmed away, keeping the Board connected; the other subgraphs are
+		 * sparser, connected, and used as they are. */
+		public BoardBuilder subgraph(Subgraph subgraph) {
+			this.subgraph= subgraph;
+			return this;
+		}
+
+		/** Set how the Nodes of this Board are placed. UNIFORM (the default)
+		 * scatters them at random; BLUE_NOISE spreads them evenly, so that no
+		 * two are very close. */
+		public BoardBuilder pointSource(PointSource source) {
+			this.source= source;
+			return this;
+		}
+
+		/** Keep snapshots of the Boards built in directory dir, or none if dir
+		 * is null (the default). A Board whose snapshot is there is read
+		 * from it instead of being generated, and a Board that is generated
+		 * is saved there. Snapshots are named by all the parameters of this
+		 * builder that can change the Board, including the triangulator (by
+		 * its toString), since engines and their settings may break ties
+		 * differently. */
+		public BoardBuilder snapshots(File dir) {
+			snapshots= dir;
+			return this;
+		}
+
+		/** Give this Board a DistanceOracle with at most k landmarks, or none
+		 * if k is 0 (the default). It is built with the Board, also when the
+		 * Board is read from a snapshot, and does not change the Board. */
+		public BoardBuilder landmarks(int k) {
+			if (k < 0)
+				throw new IllegalArgumentException("negative landmarks: " + k);
+			landmarks= k;
+			return this;
+		}
+
 		/** Build this Board.
 		 * Precondition: all appropriate parameters have been set. */
 		public Board build() {
 			if (Util.anyNull(width, height, seed, minNodes, maxNodes, minGems,
-				maxGems))
+				maxGems, engine, subgraph, source))
 				throw new IllegalStateException("unset BoardBuilder params");
 
-			return new Board(width, height, seed, minNodes, maxNodes, minGems,
-				maxGems);
+			Board b= readOrGenerate();
+			if (landmarks > 0) {
+				b.stats.begin();
+				b.oracle= new DistanceOracle(b.csr, b.byId, landmarks);
+				b.stats.end(Stage.ORACLE);
+			}
+			return b;
+		}
+
+		/** Return this Board, read from its snapshot if there is one and
+		 * generated (and saved as a snapshot, if they are kept) if not. */
+		private Board readOrGenerate() {
+			File f= null;
+			if (snapshots != null) {
+				f= new File(snapshots, String.format(
+					"board-%dx%d-n%d-%d-g%d-%d-%s-%s-%s-%d.bin", width, height,
+					minNodes, maxNodes, minGems, maxGems, engine, subgraph, source,
+					seed));
+				if (f.isFile()) {
+					BoardBuildStats stats= new BoardBuildStats();
+					stats.begin();
+					Board b= BoardSnapshot.read(f);
+					stats.end(Stage.SNAPSHOT);
+					b.stats.add(stats);
+					return b;
+				}
+			}
+
+			Board b= new Board(width, height, seed, minNodes, maxNodes, minGems,
+				maxGems, engine, subgraph, source);
+			if (f != null) {
+				// the snapshot holds these; computing them first keeps their
+				// time out of the time of writing it
+				b.furthestNodeDistance();
+				b.distanceToTarget();
+				b.sumEdges();
+				b.stats.begin();
+				BoardSnapshot.write(b, f);
+				b.stats.end(Stage.SNAPSHOT);
+			}
+			return b;
 		}
 	}
 }
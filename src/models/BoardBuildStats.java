@@ -0,0 +1,187 @@
+package models;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/** An instance records how long each stage of building a Board took and
+ * how many bytes the building thread allocated in it, for one Board or
+ * summed over many. Allocation is measured only on JVMs that support it
+ * (such as HotSpot); elsewhere it reads as -1. */
+public final class BoardBuildStats {
+	/** An instance names a stage of building a Board, in the order the
+	 * Board constructor runs them. FURTHEST, DISTANCE and SUM run later, the
+	 * first time their values are needed, and are recorded only once they
+	 * have run. */
+	public static enum Stage {
+		SETUP("RNG and node count"),
+		TRIANGULATION("Delaunay triangulation"),
+		NAMES("planet names"),
+		NODES("Nodes and grid"),
+		EDGES("Edges"),
+		VORONOI("Voronoi diagram"),
+		TRIM("trimEdges"),
+		ADJACENCY("adjacency arrays"),
+		FURTHEST("furthest distance"),
+		DISTANCE("distance to target"),
+		SUM("sum of Edges"),
+		SNAPSHOT("snapshot read/write"),
+		ORACLE("landmark distances");
+
+		/* A description of this stage, for tables. */
+		private final String description;
+
+		/** Constructor: a stage described by description. */
+		private Stage(String description) {
+			this.description= description;
+		}
+
+		/** Return a description of this stage. */
+		public String description() {
+			return description;
+		}
+	}
+
+	/* The JVM's thread bean, if it measures allocation; null if not. */
+	private static final com.sun.management.ThreadMXBean ALLOCATION=
+		allocationBean();
+
+	/* The time in nanoseconds and bytes allocated in each stage, by
+	 * ordinal; bytes are -1 where not measured. */
+	private final long[] nanos= new long[Stage.values().length];
+	private final long[] bytes= new long[Stage.values().length];
+
+	/* The number of Boards whose stats are summed here. */
+	private int boards;
+
+	/* The time and allocated bytes at the end of the last stage recorded
+	 * by this thread, or when begin() was called. */
+	private long lastNanos, lastBytes;
+
+	/** Constructor: stats of no Boards, to which others may be added. */
+	public BoardBuildStats() {}
+
+	/** Return the thread bean if it measures allocation, enabling it if
+	 * need be; otherwise, null. */
+	private static com.sun.management.ThreadMXBean allocationBean() {
+		ThreadMXBean b= ManagementFactory.getThreadMXBean();
+		if (!(b instanceof com.sun.management.ThreadMXBean)) return null;
+		com.sun.management.ThreadMXBean sb= (com.sun.management.ThreadMXBean) b;
+		if (!sb.isThreadAllocatedMemorySupported()) return null;
+		if (!sb.isThreadAllocatedMemoryEnabled())
+			sb.setThreadAllocatedMemoryEnabled(true);
+		return sb;
+	}
+
+	/** Return the number of bytes this thread has allocated, or -1 if that
+	 * is not measured. */
+	private static long allocated() {
+		return ALLOCATION == null ? -1
+			: ALLOCATION.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/** Start recording the build of one Board on this thread. The first
+	 * stage recorded by end starts now. */
+	void begin() {
+		boards= 1;
+		lastBytes= allocated();
+		lastNanos= System.nanoTime();
+	}
+
+	/** Record stage s as having run from the end of the last stage (or from
+	 * begin()) until now, on this thread. */
+	void end(Stage s) {
+		long t= System.nanoTime(), a= allocated();
+		nanos[s.ordinal()] += t - lastNanos;
+		bytes[s.ordinal()]= a == -1 || bytes[s.ordinal()] == -1 ? -1
+			: bytes[s.ordinal()] + a - lastBytes;
+		lastNanos= System.nanoTime();
+		lastBytes= allocated();
+	}
+
+	/** Run r on this thread and record it as stage s, apart from (and
+	 * without disturbing) the stages recorded by begin and end. This is how
+	 * a stage that runs after the build, when first needed, is recorded. */
+	void measure(Stage s, Runnable r) {
+		long a= allocated(), t= System.nanoTime();
+		r.run();
+		long t1= System.nanoTime(), a1= allocated();
+		record(s, t1 - t, a == -1 ? -1 : a1 - a);
+	}
+
+	/** Add time t in nanoseconds and b bytes (-1 if not measured) to
+	 * stage s. */
+	private synchronized void record(Stage s, long t, long b) {
+		nanos[s.ordinal()] += t;
+		bytes[s.ordinal()]= b == -1 || bytes[s.ordinal()] == -1 ? -1
+			: bytes[s.ordinal()] + b;
+	}
+
+	/** Add the stats of s to these. */
+	public synchronized void add(BoardBuildStats s) {
+		for (int i= 0; i != nanos.length; ++i) {
+			nanos[i] += s.nanos[i];
+			bytes[i]= bytes[i] == -1 || s.bytes[i] == -1 ? -1
+				: bytes[i] + s.bytes[i];
+		}
+		boards += s.boards;
+	}
+
+	/** Return the number of Boards whose stats are summed here. */
+	public int boards() {
+		return boards;
+	}
+
+	/** Return the total time in nanoseconds spent in stage s. */
+	public long nanos(Stage s) {
+		return nanos[s.ordinal()];
+	}
+
+	/** Return the total number of bytes allocated in stage s, or -1 if that
+	 * is not measured. */
+	public long bytes(Stage s) {
+		return bytes[s.ordinal()];
+	}
+
+	/** Return the total time in nanoseconds spent in all stages. */
+	public long totalNanos() {
+		long sum= 0;
+		for (long t : nanos)
+			sum += t;
+		return sum;
+	}
+
+	/** Return the total number of bytes allocated in all stages, or -1 if
+	 * that is not measured. */
+	public long totalBytes() {
+		long sum= 0;
+		for (long b : bytes) {
+			if (b == -1) return -1;
+			sum += b;
+		}
+		return sum;
+	}
+
+	/** Return a table of the mean time and allocation per Board of each
+	 * stage, and its share of the total time. */
+	@Override
+	public synchronized String toString() {
+		int n= Math.max(1, boards);
+		double total= Math.max(1, totalNanos());
+		StringBuilder sb= new StringBuilder(String.format(
+			"%-24s %10s %6s %12s%n", "Stage (" + boards + " Boards)", "ms",
+			"%", "KB"));
+		for (Stage s : Stage.values()) {
+			sb.append(String.format("%-24s %10.3f %6.1f %12s%n",
+				s.description(), nanos(s) / 1e6 / n, 100 * nanos(s) / total,
+				kilobytes(bytes(s), n)));
+		}
+		sb.append(String.format("%-24s %10.3f %6.1f %12s%n", "total",
+			totalNanos() / 1e6 / n, 100.0, kilobytes(totalBytes(), n)));
+		return sb.toString();
+	}
+
+	/** Return b bytes divided by n in kilobytes, or "?" if b is -1. */
+	private static String kilobytes(long b, int n) {
+		return b == -1 ? "?" : String.format("%.1f", b / 1024.0 / n);
+	}
+}
@@ -0,0 +1,188 @@
+package models;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Reads and writes snapshots of Boards as they were built: a compact
+ * binary file from which a Board is read far faster than it is generated,
+ * and which reads back as the same Board, with its sets in the same
+ * iteration order.
+ *
+ * A snapshot holds, as big-endian ints unless noted:
+ * 1. MAGIC, width, height, and the seed (a long);
+ * 2. the numbers of Nodes and Edges, the ids of Earth and the target,
+ *    the furthest Node distance (a double), distanceToTarget, sumEdges,
+ *    and the number of Edges before trimming;
+ * 3. the number of distinct names, then each as its length in bytes and
+ *    its bytes in UTF-8;
+ * 4. for each Node, by id: x, y, the index of its name, its gems, and its
+ *    number of exits before trimming;
+ * 5. for each Edge, in the iteration order of Board.edges(): the ids of
+ *    its first and second exits;
+ * 6. for each Node, by id: its number of exits, then the index in part 5
+ *    of each, in the iteration order of its exits. */
+public final class BoardSnapshot {
+	/* The first int of every snapshot: "PXB1" in ASCII. */
+	private static final int MAGIC= 0x50584231;
+
+	/** Constructor: none; this class has only static methods. */
+	private BoardSnapshot() {}
+
+	/** Write a snapshot of b to file f, replacing f atomically so that a
+	 * reader never sees it half written. It is written first to a temporary
+	 * file of its own in the directory of f, so writers in other threads or
+	 * processes may write the same snapshot at once. Throw an
+	 * UncheckedIOException if it cannot be written.
+	 * Precondition: no game has been played on b. */
+	public static void write(Board b, File f) {
+		Node[] ns= new Node[b.nodeCount()];
+		for (Node n : b.nodes())
+			ns[n.id()]= n;
+		Map<Edge, Integer> index= new HashMap<Edge, Integer>();
+		Edge[] es= b.edges().toArray(new Edge[0]);
+		for (int i= 0; i != es.length; ++i)
+			index.put(es[i], i);
+		Map<String, Integer> names= new HashMap<String, Integer>();
+		String[] table= new String[ns.length];
+		for (Node n : ns) {
+			if (!names.containsKey(n.name())) {
+				table[names.size()]= n.name();
+				names.put(n.name(), names.size());
+			}
+		}
+
+		Path tmp;
+		try {
+			tmp= Files.createTempFile(f.getAbsoluteFile().getParentFile()
+				.toPath(), f.getName(), ".tmp");
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot write " + f, e);
+		}
+		try (DataOutputStream out= new DataOutputStream(
+			new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(b.width());
+			out.writeInt(b.height());
+			out.writeLong(b.seed());
+			out.writeInt(ns.length);
+			out.writeInt(es.length);
+			out.writeInt(b.earth().id());
+			out.writeInt(b.target().id());
+			out.writeDouble(b.furthestNodeDistance());
+			out.writeInt(b.distanceToTarget());
+			out.writeInt(b.sumEdges());
+			out.writeInt(b.untrimmedEdges());
+
+			out.writeInt(names.size());
+			for (int i= 0; i != names.size(); ++i) {
+				byte[] bytes= table[i].getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+			for (Node n : ns) {
+				out.writeInt(n.x());
+				out.writeInt(n.y());
+				out.writeInt(names.get(n.name()));
+				out.writeInt(n.gems());
+				out.writeInt(b.untrimmedExits(n.id()));
+			}
+			for (Edge e : es) {
+				out.writeInt(e.firstExit().id());
+				out.writeInt(e.secondExit().id());
+			}
+			for (Node n : ns) {
+				out.writeInt(n.exits().size());
+				for (Edge e : n.exits())
+					out.writeInt(index.get(e));
+			}
+		} catch (IOException e) {
+			deleteQuietly(tmp);
+			throw new UncheckedIOException("Cannot write " + f, e);
+		}
+
+		// tmp is closed, so all of it is written before it replaces f
+		try {
+			Files.move(tmp, f.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			deleteQuietly(tmp);
+			throw new UncheckedIOException("Cannot write " + f, e);
+		}
+	}
+
+	/** Delete file p if it exists, ignoring any failure to. */
+	private static void deleteQuietly(Path p) {
+		try {
+			Files.deleteIfExists(p);
+		} catch (IOException e) {}
+	}
+
+	/** Return the Board whose snapshot is file f, which is mapped into
+	 * memory to be read. Throw an UncheckedIOException if it cannot be read
+	 * or is not a snapshot. */
+	public static Board read(File f) {
+		ByteBuffer in;
+		try (FileChannel ch= FileChannel.open(f.toPath(),
+			StandardOpenOption.READ)) {
+			in= ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read " + f, e);
+		}
+		if (in.remaining() < 4 || in.getInt() != MAGIC)
+			throw new UncheckedIOException("Not a Board snapshot: " + f,
+				new IOException("bad magic number"));
+
+		try {
+			int w= in.getInt(), h= in.getInt();
+			long seed= in.getLong();
+			int n= in.getInt(), m= in.getInt();
+			int earthId= in.getInt(), targetId= in.getInt();
+			double furthest= in.getDouble();
+			int distanceToTarget= in.getInt(), sumEdges= in.getInt();
+			int untrimmedEdges= in.getInt();
+
+			String[] table= new String[in.getInt()];
+			for (int i= 0; i != table.length; ++i) {
+				byte[] bytes= new byte[in.getInt()];
+				in.get(bytes);
+				table[i]= new String(bytes, StandardCharsets.UTF_8);
+			}
+			Node[] ns= new Node[n];
+			int[] untrimmedExits= new int[n];
+			for (int i= 0; i != n; ++i) {
+				int x= in.getInt(), y= in.getInt();
+				ns[i]= new Node.NodeBuilder().pos(x, y).name(table[in.getInt()])
+					.id(i).gems(in.getInt()).build();
+				untrimmedExits[i]= in.getInt();
+			}
+			Edge[] es= new Edge[m];
+			for (int i= 0; i != m; ++i)
+				es[i]= new Edge(ns[in.getInt()], ns[in.getInt()]);
+			int[][] exits= new int[n][];
+			for (int i= 0; i != n; ++i) {
+				exits[i]= new int[in.getInt()];
+				for (int j= 0; j != exits[i].length; ++j)
+					exits[i][j]= in.getInt();
+			}
+
+			return new Board(w, h, seed, ns, es, exits, earthId, targetId,
+				furthest, distanceToTarget, sumEdges, untrimmedExits,
+				untrimmedEdges);
+		} catch (RuntimeException e) {
+			throw new UncheckedIOException("Corrupt Board snapshot: " + f,
+				new IOException(e));
+		}
+	}
+}
@@ -0,0 +1,496 @@
+package models;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/** An instance answers shortest-path queries between Nodes of a Board by
+ * means of a contraction hierarchy, which makes them fast on very large
+ * Boards at the price of a preprocessing step.
+ *
+ * Preprocessing contracts the Nodes one at a time, least important first:
+ * a Node is removed from the graph, and for each pair of its remaining
+ * neighbors whose shortest path ran through it, a shortcut Edge as long as
+ * that path is added between them. Importance is estimated by the edge
+ * difference (shortcuts needed less Edges removed), plus the number of
+ * neighbors already contracted and the level of the Node (see Contraction),
+ * which spread contraction evenly over the graph. It is updated lazily,
+ * when a Node is about to be contracted, and estimated with smaller witness
+ * searches than those of the contraction itself.
+ * Whether a shortcut is needed is decided by a local
+ * Dijkstra search for a witness path that avoids the Node, limited in the
+ * number of Nodes it settles; a failed search only adds a needless
+ * shortcut, never a wrong one.
+ *
+ * Every shortest path then climbs to a highest-ranked Node using only Edges
+ * and shortcuts to higher-ranked Nodes, and falls from it likewise, so a
+ * query searches upward from both ends at once and settles only a small
+ * part of the graph. Shortcuts are unpacked into the Nodes they stand for,
+ * giving paths of real Edges.
+ *
+ * Queries reuse work space, so they are synchronized. An instance is built
+ * from the Board as it is; it does not change with the Board. */
+public final class ContractionHierarchy {
+	/* The most Nodes that a witness search settles when contracting a Node,
+	 * and when only estimating the shortcuts it would need. */
+	private static final int WITNESS_SETTLE_LIMIT= 200;
+	private static final int ESTIMATE_SETTLE_LIMIT= 20;
+
+	/* The Nodes of the Board, by id. */
+	private final Node[] nodes;
+
+	/* The rank of each Node, by id: the order in which it was contracted. */
+	private final int[] rank;
+
+	/* The Edges from each Node v to higher-ranked Nodes (the upward graph):
+	 * slots upStart[v] .. upStart[v + 1] - 1, each with the id of the other
+	 * Node, the length, and the id of the Node that a shortcut bypasses, or
+	 * -1 for an Edge of the Board. */
+	private final int[] upStart, upTo, upLength, upMiddle;
+
+	/* Query work space: the distance of each Node from the start (forward)
+	 * and the end (backward), or Integer.MAX_VALUE if not reached; the Node
+	 * before it on that path and the upward slot leading to it; and the
+	 * Nodes reached, to reset them after a query. */
+	private final int[] distF, distB, prevF, prevB, slotF, slotB;
+	private int[] touched;
+	private int touchedCount;
+
+	/** Constructor: a contraction hierarchy of the graph of Board b. It takes
+	 * time and space roughly linear in the number of Nodes for Boards like
+	 * the generated ones. */
+	public ContractionHierarchy(Board b) {
+		AdjacencyArrays g= b.csr();
+		int n= g.nodeCount();
+		nodes= new Node[n];
+		for (int v= 0; v != n; ++v)
+			nodes[v]= b.getNode(v);
+
+		Contraction c= new Contraction(g);
+		c.run();
+		rank= c.rank;
+
+		// collect, for each Node, its Edges to the Nodes that outlived it
+		upStart= new int[n + 1];
+		for (int v= 0; v != n; ++v)
+			upStart[v + 1]= upStart[v] + c.up[v].length / 3;
+		upTo= new int[upStart[n]];
+		upLength= new int[upTo.length];
+		upMiddle= new int[upTo.length];
+		for (int v= 0; v != n; ++v) {
+			int[] u= c.up[v];
+			for (int i= 0, j= upStart[v]; i != u.length; i += 3, ++j) {
+				upTo[j]= u[i];
+				upLength[j]= u[i + 1];
+				upMiddle[j]= u[i + 2];
+			}
+		}
+
+		distF= new int[n];
+		distB= new int[n];
+		Arrays.fill(distF, Integer.MAX_VALUE);
+		Arrays.fill(distB, Integer.MAX_VALUE);
+		prevF= new int[n];
+		prevB= new int[n];
+		slotF= new int[n];
+		slotB= new int[n];
+		touched= new int[16];
+	}
+
+	/** Return the number of Nodes. */
+	public int nodeCount() {
+		return nodes.length;
+	}
+
+	/** Return the number of shortcuts added by preprocessing. */
+	public int shortcutCount() {
+		int k= 0;
+		for (int m : upMiddle) {
+			if (m != -1) ++k;
+		}
+		return k;
+	}
+
+	/** Return the number of bytes taken by the arrays of this hierarchy,
+	 * other than those it shares with the Board. */
+	public long bytes() {
+		return 4L * (rank.length + upStart.length + 3 * upTo.length
+			+ 6 * distF.length + touched.length);
+	}
+
+	/** Return the length of a shortest path between the Nodes with ids s
+	 * and t, or Integer.MAX_VALUE if there is none. */
+	public synchronized int distance(int s, int t) {
+		int m= search(s, t);
+		int d= m == -1 ? Integer.MAX_VALUE : distF[m] + distB[m];
+		reset();
+		return d;
+	}
+
+	/** Return a shortest path from start to end, as the list of its Nodes
+	 * from start to end, or the empty list if there is none, as in
+	 * student.Paths.minPath; its weight is util.Paths.pathWeight of it. */
+	public synchronized List<Node> minPath(Node start, Node end) {
+		List<Node> path= new LinkedList<Node>();
+		int m= search(start.id(), end.id());
+		if (m != -1) {
+			// climb from the meeting Node back to start, then down to end
+			int[] climb= new int[16];
+			int k= 0;
+			for (int v= m; v != start.id(); v= prevF[v]) {
+				if (k == climb.length) climb= Arrays.copyOf(climb, 2 * k);
+				climb[k++]= slotF[v];
+			}
+			path.add(start);
+			int at= start.id();
+			for (int i= k - 1; i >= 0; --i)
+				at= unpack(at, climb[i], path);
+			for (int v= m; v != end.id(); v= prevB[v])
+				at= unpack(at, slotB[v], path);
+		}
+		reset();
+		return path;
+	}
+
+	/** Append to path the Nodes after Node a on the path that the Edge of
+	 * upward slot i stands for, where a is one of its ends, and return the
+	 * id of its other end. */
+	private int unpack(int a, int i, List<Node> path) {
+		int owner= owner(i);
+		int b= a == owner ? upTo[i] : owner;
+		// a stack of (from, to) pairs of Nodes still to be unpacked, the top
+		// being the next part of the path
+		int[] stack= new int[16];
+		int top= 0;
+		stack[top++]= a;
+		stack[top++]= b;
+		while (top != 0) {
+			int y= stack[--top], x= stack[--top];
+			int mid= middle(x, y);
+			if (mid == -1) {
+				path.add(nodes[y]);
+			} else {
+				if (top + 4 > stack.length)
+					stack= Arrays.copyOf(stack, 2 * stack.length);
+				stack[top++]= mid;
+				stack[top++]= y;
+				stack[top++]= x;
+				stack[top++]= mid;
+			}
+		}
+		return b;
+	}
+
+	/** Return the Node whose upward slots include slot i. */
+	private int owner(int i) {
+		int lo= 0, hi= nodes.length - 1;
+		// inv: upStart[lo] <= i < upStart[hi + 1]
+		while (lo < hi) {
+			int mid= (lo + hi + 1) >>> 1;
+			if (upStart[mid] <= i) lo= mid;
+			else hi= mid - 1;
+		}
+		return lo;
+	}
+
+	/** Return the Node bypassed by the upward Edge between Nodes x and y, or
+	 * -1 if it is an Edge of the Board. */
+	private int middle(int x, int y) {
+		int lo= rank[x] < rank[y] ? x : y, hi= lo == x ? y : x;
+		for (int i= upStart[lo]; i != upStart[lo + 1]; ++i) {
+			if (upTo[i] == hi) return upMiddle[i];
+		}
+		throw new IllegalStateException("no Edge " + x + "-" + y);
+	}
+
+	/** Search upward from s and t at once, leaving distances and the Nodes
+	 * before them in the work space, and return the Node at which a
+	 * shortest path between them peaks, or -1 if there is none. */
+	private int search(int s, int t) {
+		long[] heapF= new long[16], heapB= new long[16];
+		int sizeF= 0, sizeB= 0;
+		touch(s);
+		touch(t);
+		distF[s]= 0;
+		distB[t]= 0;
+		heapF[sizeF++]= s;
+		heapB[sizeB++]= t;
+		if (s == t) return s;
+		long best= Long.MAX_VALUE;
+		int meet= -1;
+
+		while (sizeF != 0 && heapF[0] >>> 32 < best
+			|| sizeB != 0 && heapB[0] >>> 32 < best) {
+			// advance the side whose next Node is nearer
+			boolean forward= sizeB == 0 || heapB[0] >>> 32 >= best
+				|| sizeF != 0 && heapF[0] >>> 32 < best
+				&& heapF[0] <= heapB[0];
+			long[] heap= forward ? heapF : heapB;
+			int[] dist= forward ? distF : distB, other= forward ? distB : distF;
+			int[] prev= forward ? prevF : prevB, slot= forward ? slotF : slotB;
+
+			long top= heap[0];
+			int size= (forward ? sizeF : sizeB) - 1;
+			heap[0]= heap[size];
+			AdjacencyArrays.siftDown(heap, size);
+			int v= (int) top;
+			int d= (int) (top >>> 32);
+			if (d == dist[v]) {
+				if (other[v] != Integer.MAX_VALUE
+					&& (long) d + other[v] < best) {
+					best= (long) d + other[v];
+					meet= v;
+				}
+				for (int i= upStart[v]; i != upStart[v + 1]; ++i) {
+					int w= upTo[i];
+					int dw= d + upLength[i];
+					if (dw < dist[w]) {
+						if (dist[w] == Integer.MAX_VALUE
+							&& other[w] == Integer.MAX_VALUE) touch(w);
+						dist[w]= dw;
+						prev[w]= v;
+						slot[w]= i;
+						if (size == heap.length)
+							heap= Arrays.copyOf(heap, 2 * size);
+						heap[size]= (long) dw << 32 | w;
+						AdjacencyArrays.siftUp(heap, size++);
+					}
+				}
+			}
+
+			if (forward) {
+				heapF= heap;
+				sizeF= size;
+			} else {
+				heapB= heap;
+				sizeB= size;
+			}
+		}
+		return meet;
+	}
+
+	/** Note that Node v is about to be reached for the first time. */
+	private void touch(int v) {
+		if (touchedCount == touched.length)
+			touched= Arrays.copyOf(touched, 2 * touched.length);
+		touched[touchedCount++]= v;
+	}
+
+	/** Forget the distances of the last query. */
+	private void reset() {
+		for (int i= 0; i != touchedCount; ++i) {
+			distF[touched[i]]= Integer.MAX_VALUE;
+			distB[touched[i]]= Integer.MAX_VALUE;
+		}
+		touchedCount= 0;
+	}
+
+	/** An instance contracts the Nodes of a graph and records the resulting
+	 * ranks and upward Edges. */
+	private static final class Contraction {
+		/* The number of Nodes. */
+		private final int n;
+
+		/* The Edges and shortcuts at each Node v among Nodes not yet
+		 * contracted: for i < deg[v], adj[v][3i .. 3i + 2] are the other
+		 * Node, the length, and the bypassed Node or -1. */
+		private final int[][] adj;
+		private final int[] deg;
+
+		/* How many neighbors of each Node are contracted, and its level: one
+		 * more than the highest level of a contracted neighbor, which bounds
+		 * the depth of the upward searches through it. */
+		private final int[] contractedNeighbors, level;
+
+		/* The rank of each Node, and its upward Edges as in adj. */
+		final int[] rank;
+		final int[][] up;
+
+		/* Witness search work space: distances from the source, or
+		 * Integer.MAX_VALUE, and the Nodes reached. */
+		private final int[] wdist;
+		private int[] wtouched= new int[16];
+		private long[] wheap= new long[16];
+
+		/** Constructor: a contraction of graph g, with no Node contracted. */
+		Contraction(AdjacencyArrays g) {
+			n= g.nodeCount();
+			adj= new int[n][];
+			deg= new int[n];
+			for (int v= 0; v != n; ++v) {
+				adj[v]= new int[3 * g.degree(v)];
+				for (int i= g.start(v); i != g.end(v); ++i)
+					addEdge(v, g.neighbor(i), g.length(i), -1);
+			}
+			contractedNeighbors= new int[n];
+			level= new int[n];
+			rank= new int[n];
+			up= new int[n][];
+			wdist= new int[n];
+			Arrays.fill(wdist, Integer.MAX_VALUE);
+		}
+
+		/** Contract every Node, least priority first. A priority is brought
+		 * up to date only when its Node comes first, so each Node is checked
+		 * against the next one before it is contracted. */
+		void run() {
+			long[] heap= new long[Math.max(1, n)];
+			int size= 0;
+			for (int v= 0; v != n; ++v) {
+				heap[size]= key(priority(v), v);
+				AdjacencyArrays.siftUp(heap, size++);
+			}
+			int next= 0;
+			while (size != 0) {
+				int v= (int) heap[0];
+				heap[0]= heap[--size];
+				AdjacencyArrays.siftDown(heap, size);
+				long k= key(priority(v), v);
+				if (size != 0 && k > heap[0]) {
+					heap[size]= k;
+					AdjacencyArrays.siftUp(heap, size++);
+					continue;
+				}
+
+				rank[v]= next++;
+				int[] a= contract(v);
+				for (int i= 0; i < a.length; i += 3)
+					level[a[i]]= Math.max(level[a[i]], level[v] + 1);
+			}
+		}
+
+		/** Return the heap key of Node v with priority p. */
+		private static long key(int p, int v) {
+			return (long) (p + (1 << 30)) << 32 | v;
+		}
+
+		/** Return the priority of Node v: the smaller, the sooner it is
+		 * contracted. */
+		private int priority(int v) {
+			return 2 * (shortcuts(v, false) - deg[v]) + contractedNeighbors[v]
+				+ level[v];
+		}
+
+		/** Contract Node v: add the shortcuts it needs, remove it from the
+		 * graph, and return its Edges, which are its upward Edges. */
+		private int[] contract(int v) {
+			shortcuts(v, true);
+			int[] a= Arrays.copyOf(adj[v], 3 * deg[v]);
+			for (int i= 0; i < a.length; i += 3) {
+				int w= a[i];
+				removeEdge(w, v);
+				++contractedNeighbors[w];
+			}
+			up[v]= a;
+			adj[v]= null;
+			deg[v]= 0;
+			return a;
+		}
+
+		/** Return the number of shortcuts that contracting Node v needs, and
+		 * add them if add is true. */
+		private int shortcuts(int v, boolean add) {
+			int count= 0;
+			int[] a= adj[v];
+			int dv= deg[v];
+			for (int i= 0; i < dv - 1; ++i) {
+				int x= a[3 * i];
+
+				// the longest path through v from x that may need a shortcut
+				int max= 0;
+				for (int j= i + 1; j != dv; ++j)
+					max= Math.max(max, a[3 * i + 1] + a[3 * j + 1]);
+
+				int reached= witnessSearch(x, v, max,
+					add ? WITNESS_SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT);
+				for (int j= i + 1; j != dv; ++j) {
+					int y= a[3 * j];
+					int d= a[3 * i + 1] + a[3 * j + 1];
+					if (wdist[y] > d) {
+						++count;
+						if (add) {
+							addEdge(x, y, d, v);
+							addEdge(y, x, d, v);
+						}
+					}
+				}
+				for (int r= 0; r != reached; ++r)
+					wdist[wtouched[r]]= Integer.MAX_VALUE;
+			}
+			return count;
+		}
+
+		/** Run Dijkstra from Node x among Nodes not contracted other than v,
+		 * up to distance max or limit settled Nodes, leaving distances found
+		 * in wdist; return the number of Nodes reached, which are
+		 * wtouched[0..]. */
+		private int witnessSearch(int x, int v, int max, int limit) {
+			int reached= 0, settled= 0, size= 0;
+			wdist[x]= 0;
+			wtouched[reached++]= x;
+			wheap[size++]= x;
+			while (size != 0 && settled != limit) {
+				long top= wheap[0];
+				wheap[0]= wheap[--size];
+				AdjacencyArrays.siftDown(wheap, size);
+				int w= (int) top;
+				int d= (int) (top >>> 32);
+				if (d != wdist[w]) continue;
+				if (d > max) break;
+				++settled;
+
+				int[] a= adj[w];
+				for (int i= 0; i != deg[w]; ++i) {
+					int y= a[3 * i];
+					int dy= d + a[3 * i + 1];
+					if (y != v && dy < wdist[y]) {
+						if (wdist[y] == Integer.MAX_VALUE) {
+							if (reached == wtouched.length)
+								wtouched= Arrays.copyOf(wtouched, 2 * reached);
+							wtouched[reached++]= y;
+						}
+						wdist[y]= dy;
+						if (size == wheap.length)
+							wheap= Arrays.copyOf(wheap, 2 * size);
+						wheap[size]= (long) dy << 32 | y;
+						AdjacencyArrays.siftUp(wheap, size++);
+					}
+				}
+			}
+			return reached;
+		}
+
+		/** Add an Edge (or shortcut bypassing Node mid, if mid != -1) of
+		 * length d from Node x to Node y, or shorten the one there is. */
+		private void addEdge(int x, int y, int d, int mid) {
+			int[] a= adj[x];
+			for (int i= 0; i != deg[x]; ++i) {
+				if (a[3 * i] == y) {
+					if (d < a[3 * i + 1]) {
+						a[3 * i + 1]= d;
+						a[3 * i + 2]= mid;
+					}
+					return;
+				}
+			}
+			if (3 * deg[x] == a.length)
+				adj[x]= a= Arrays.copyOf(a, Math.max(6, 2 * a.length));
+			a[3 * deg[x]]= y;
+			a[3 * deg[x] + 1]= d;
+			a[3 * deg[x] + 2]= mid;
+			++deg[x];
+		}
+
+		/** Remove the Edge from Node x to Node y, moving the last Edge of x
+		 * into its place.
+		 * Precondition: there is one. */
+		private void removeEdge(int x, int y) {
+			int[] a= adj[x];
+			int i= 0;
+			while (a[3 * i] != y)
+				++i;
+			--deg[x];
+			System.arraycopy(a, 3 * deg[x], a, 3 * i, 3);
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package models;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/** An instance answers questions about shortest-path distances between the
+ * Nodes of a Board using landmarks (the ALT method): a few Nodes whose
+ * distances to every Node are computed in advance. By the triangle
+ * inequality, for every landmark l,
+ *
+ *     |d(l, u) - d(l, v)| <= d(u, v) <= d(l, u) + d(l, v),
+ *
+ * so bounds on the distance between any two Nodes take O(k) time for k
+ * landmarks, and the lower bound guides an A* search for the exact
+ * distance.
+ *
+ * Earth (id 0) is always a landmark, so distances to and from it are exact
+ * and take constant time. The others lie on the rim of the Board, one per
+ * sector of equal angle around the middle of the Nodes, where their bounds
+ * are tightest for most pairs. Nodes are named by id, as in
+ * AdjacencyArrays. */
+public final class DistanceOracle {
+	/* The graph whose distances are answered. */
+	private final AdjacencyArrays g;
+
+	/* The ids of the landmarks. */
+	private final int[] landmarks;
+
+	/* dist[i][v] is the distance from landmark i to Node v, or
+	 * Integer.MAX_VALUE if v cannot be reached from it. */
+	private final int[][] dist;
+
+	/* The index in landmarks of each Node, by id, or -1 for a Node that is
+	 * not a landmark. */
+	private final int[] landmarkIndex;
+
+	/* Search work space, kept between searches so that a search costs time
+	 * for the Nodes it reaches, not for the whole graph: the distance of
+	 * each Node from the start, or Integer.MAX_VALUE if not reached (null
+	 * until the first search); the heap; and the Nodes reached, to reset
+	 * them after a search. */
+	private int[] reached;
+	private long[] heap= new long[16];
+	private int[] touched= new int[16];
+	private int touchedCount;
+
+	/** Constructor: an oracle for graph g of Nodes ns, indexed by id, with
+	 * at most k landmarks (fewer if there are fewer Nodes or the rim has
+	 * gaps). The k searches run in parallel where processors allow.
+	 * Precondition: k > 0 and ns is not empty. */
+	DistanceOracle(AdjacencyArrays g, Node[] ns, int k) {
+		if (k <= 0)
+			throw new IllegalArgumentException("k must be positive: " + k);
+		this.g= g;
+		landmarks= pickLandmarks(ns, k);
+		landmarkIndex= new int[ns.length];
+		Arrays.fill(landmarkIndex, -1);
+		for (int i= 0; i != landmarks.length; ++i)
+			landmarkIndex[landmarks[i]]= i;
+		dist= new int[landmarks.length][];
+		IntStream.range(0, landmarks.length).parallel()
+			.forEach(i -> dist[i]= g.distancesFrom(landmarks[i]));
+	}
+
+	/** Return the ids of at most k landmarks among Nodes ns: Node 0 first,
+	 * then, for each of k - 1 sectors of equal angle around the centroid of
+	 * ns, the Node in it farthest from the centroid, if any. */
+	private static int[] pickLandmarks(Node[] ns, int k) {
+		double cx= 0, cy= 0;
+		for (Node n : ns) {
+			cx += n.x();
+			cy += n.y();
+		}
+		cx /= ns.length;
+		cy /= ns.length;
+
+		// best[s] is the id of the farthest Node found in sector s, or -1
+		int sectors= k - 1;
+		int[] best= new int[sectors];
+		double[] far= new double[sectors];
+		Arrays.fill(best, -1);
+		for (int v= 1; v < ns.length && sectors > 0; ++v) {
+			double dx= ns[v].x() - cx, dy= ns[v].y() - cy;
+			int s= (int) ((Math.atan2(dy, dx) + Math.PI) / (2 * Math.PI)
+				* sectors);
+			s= Math.min(s, sectors - 1);
+			double d2= dx * dx + dy * dy;
+			if (best[s] == -1 || d2 > far[s]) {
+				best[s]= v;
+				far[s]= d2;
+			}
+		}
+
+		int[] ls= new int[k];
+		int m= 0;
+		ls[m++]= 0;
+		for (int v : best) {
+			if (v != -1) ls[m++]= v;
+		}
+		return Arrays.copyOf(ls, m);
+	}
+
+	/** Return the number of landmarks. */
+	public int landmarkCount() {
+		return landmarks.length;
+	}
+
+	/** Return the id of landmark i. */
+	public int landmark(int i) {
+		return landmarks[i];
+	}
+
+	/** Return a lower bound on the distance between Nodes u and v. It takes
+	 * O(k) time. */
+	public int lowerBound(int u, int v) {
+		int lb= 0;
+		for (int[] d : dist) {
+			if (d[u] != Integer.MAX_VALUE && d[v] != Integer.MAX_VALUE)
+				lb= Math.max(lb, Math.abs(d[u] - d[v]));
+		}
+		return lb;
+	}
+
+	/** Return an upper bound on the distance between Nodes u and v, or
+	 * Integer.MAX_VALUE if no landmark reaches both. It takes O(k) time. */
+	public int upperBound(int u, int v) {
+		long ub= Integer.MAX_VALUE;
+		for (int[] d : dist) {
+			if (d[u] != Integer.MAX_VALUE && d[v] != Integer.MAX_VALUE)
+				ub= Math.min(ub, (long) d[u] + d[v]);
+		}
+		return (int) ub;
+	}
+
+	/** Return the distance between Nodes u and v, or Integer.MAX_VALUE if
+	 * there is no path between them. It takes constant time if either is a
+	 * landmark (such as Earth), and O(k) time if the bounds meet; otherwise,
+	 * it searches with A*, guided by lowerBound, which usually visits a
+	 * small part of the graph. A search takes no time or space for the
+	 * Nodes it does not reach. */
+	public int distance(int u, int v) {
+		if (landmarkIndex[u] != -1) return dist[landmarkIndex[u]][v];
+		if (landmarkIndex[v] != -1) return dist[landmarkIndex[v]][u];
+		int ub= upperBound(u, v);
+		if (ub == lowerBound(u, v)) return ub;
+		return search(u, v);
+	}
+
+	/** Return the distance from Node u to Node v, found by A* search with
+	 * lowerBound(., v) as the heuristic, or Integer.MAX_VALUE if v cannot be
+	 * reached. The heuristic is consistent, so each Node is settled once. */
+	private synchronized int search(int u, int v) {
+		if (reached == null) {
+			reached= new int[g.nodeCount()];
+			Arrays.fill(reached, Integer.MAX_VALUE);
+		}
+		int result= search(reached, u, v);
+		for (int i= 0; i != touchedCount; ++i)
+			reached[touched[i]]= Integer.MAX_VALUE;
+		touchedCount= 0;
+		return result;
+	}
+
+	/** Return search(u, v), using d for the distances from u, noting in
+	 * touched each Node whose distance it sets.
+	 * Precondition: d holds Integer.MAX_VALUE for every Node. */
+	private int search(int[] d, int u, int v) {
+		touch(u);
+		d[u]= 0;
+
+		// a min-heap of (estimate << 32 | id), where the estimate is the
+		// distance so far plus the lower bound; stale entries are skipped
+		int size= 0;
+		heap[size++]= (long) lowerBound(u, v) << 32 | u;
+		while (size != 0) {
+			long top= heap[0];
+			heap[0]= heap[--size];
+			AdjacencyArrays.siftDown(heap, size);
+			int w= (int) top;
+			if (w == v) return d[v];
+			if ((int) (top >>> 32) != d[w] + lowerBound(w, v)) continue;
+
+			for (int i= g.start(w); i != g.end(w); ++i) {
+				int x= g.neighbor(i);
+				int dx= d[w] + g.length(i);
+				if (dx < d[x]) {
+					if (d[x] == Integer.MAX_VALUE) touch(x);
+					d[x]= dx;
+					if (size == heap.length)
+						heap= Arrays.copyOf(heap, 2 * heap.length);
+					heap[size]= (long) (dx + lowerBound(x, v)) << 32 | x;
+					AdjacencyArrays.siftUp(heap, size++);
+				}
+			}
+		}
+		return Integer.MAX_VALUE;
+	}
+
+	/** Note that Node v is about to be reached for the first time. */
+	private void touch(int v) {
+		if (touchedCount == touched.length)
+			touched= Arrays.copyOf(touched, 2 * touched.length);
+		touched[touchedCount++]= v;
+	}
+}
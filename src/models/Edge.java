@@ -1,7 +1,5 @@
 package models;
 
-import java.util.Objects;
-
 import util.Util;
 
 /** Edges are weighted undirected connections between two Nodes. The weight
@@ -21,6 +19,14 @@ public class Edge implements BoardElement {
     
     private int visits; // The number of times this Edge has been visited.
 
+    /* The hash code of this Edge, which depends only on the ids of its
+     * exits, computed once: Edges are hashed often while a Board is built. */
+    private final int hash;
+
+    /* The id of this Edge in the AdjacencyArrays of its Board, set when they
+     * are built. */
+    int id;
+
     /** Constructor: An edge with end nodes n1 and n2.
      * Precondition: n1 and n2 are non-null, non-equal Nodes. length > 0. */
     Edge(Node n1, Node n2) {
@@ -33,7 +39,9 @@ public class Edge implements BoardElement {
 
         exits[0]= n1;
         exits[1]= n2;
-        
+        // equal to Objects.hash(n1, n2), without allocating an array
+        hash= 31 * (31 + n1.hashCode()) + n2.hashCode();
+
         double d= Util.distance(n1.x(), n1.y(), n2.x(), n2.y()) + 0.5;
         length= d <= 1 ? 1 : (int) d;
         visits= 0;
@@ -100,7 +108,7 @@ public class Edge implements BoardElement {
 
     @Override
     public int hashCode() {
-        return Objects.hash(exits[0], exits[1]);
+        return hash;
     }
 
     /**
@@ -9,6 +9,10 @@ public interface Model {
 	/** Return the seed used to generate this game. */
 	public long seed();
 
+	/** Return the time and allocation of each stage of building the Board
+	 * of this game. */
+	public BoardBuildStats buildStats();
+
 	/** Return a Set of all Nodes in this game. */
 	public Set<Node> nodes();
 
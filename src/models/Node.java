@@ -61,6 +61,13 @@ public class Node implements BoardElement {
 		exits.add(e);
 	}
 
+	/** Make room for n exits, ordering exits as a set to which n were
+	 * added would (see Util.hashCapacity).
+	 * Precondition: this Node has no exits. */
+	void reserveExits(int n) {
+		exits= new HashSet<Edge>(Util.hashCapacity(n));
+	}
+
 	/** Remove e from this Node's set of exits. */
 	void removeExit(Edge e) {
 		exits.remove(e);
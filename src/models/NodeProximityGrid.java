@@ -19,8 +19,18 @@ public class NodeProximityGrid implements Iterable<Node> {
 	 * rectangle, and will always be rectangular (i.e. not ragged). */
 	private ArrayList<ArrayList<List<Node>>> rs;
 
+	/* The side of an individual rectangle, unless that makes the grid too
+	 * dense or too large for its Nodes (see side). */
+	private static final int RECT_SIDE= 64;
+
+	/* The most Nodes per rectangle, on average, and the most rectangles for
+	 * which RECT_SIDE is kept; beyond them, the side is fitted to the Nodes
+	 * so that there are about FITTED_NODES Nodes per rectangle. */
+	private static final int MAX_NODES_PER_RECT= 4, MAX_RECTS= 1 << 20;
+	private static final int FITTED_NODES= 2;
+
 	/* The dimensions of an individual rectangle. */
-	private static final int RECT_WIDTH= 64, RECT_HEIGHT= 64;
+	private final int rectWidth, rectHeight;
 
 	/* The minimum x- and y-values of this NodeProximitySet. */
 	private int x, y;
@@ -28,34 +38,70 @@ public class NodeProximityGrid implements Iterable<Node> {
 	/** Constructor: a NodeProximityMap spanning the axis-aligned rectangle
 	 * with bottom-left coordinates (x, y) and the given dimensions. */
 	public NodeProximityGrid(int x, int y, int width, int height) {
+		this(x, y, width, height, 0);
+	}
+
+	/** Constructor: a NodeProximityMap spanning the axis-aligned rectangle
+	 * with bottom-left coordinates (x, y) and the given dimensions, with
+	 * rectangles sized to hold about n Nodes (0 if not known). */
+	public NodeProximityGrid(int x, int y, int width, int height, int n) {
 		this.x= x;
 		this.y= y;
+		rectWidth= side(width, height, n);
+		rectHeight= rectWidth;
 
-		int w= width / RECT_WIDTH + 1;
-		int h= height / RECT_HEIGHT + 1;
+		int w= width / rectWidth + 1;
+		int h= height / rectHeight + 1;
 		rs= new ArrayList<>(h);
 		for (int i= 0; i < h; ++i) {
-			rs.add(new ArrayList<>(h));
+			rs.add(new ArrayList<>(w));
 			for (int j= 0; j < w; ++j) {
-				rs.get(i).add(new LinkedList<Node>());
+				// an empty ArrayList holds no array, so empty cells cost little
+				rs.get(i).add(new ArrayList<Node>(0));
 			}
 		}
 	}
 
+	/** Return the side of the rectangles of a grid of the given dimensions
+	 * that holds about n Nodes: RECT_SIDE, unless that puts more than
+	 * MAX_NODES_PER_RECT Nodes in a rectangle on average or makes more than
+	 * MAX_RECTS rectangles, in which case about FITTED_NODES Nodes fall in
+	 * each rectangle. */
+	private static int side(int width, int height, int n) {
+		long rects= (long) (width / RECT_SIDE + 1) * (height / RECT_SIDE + 1);
+		if (n <= MAX_NODES_PER_RECT * rects && rects <= MAX_RECTS)
+			return RECT_SIDE;
+		double area= ((double) width + 1) * ((double) height + 1);
+		double side= Math.sqrt(area * FITTED_NODES / Math.max(1, n));
+		// about MAX_RECTS rectangles at most, however many Nodes there are
+		side= Math.max(side, Math.sqrt(area / MAX_RECTS));
+		return Math.max(1, (int) Math.ceil(side));
+	}
+
 	/** Add Node n to this NodeProximityGrid.
 	 * Precondition: n is within the bounds of this NodeProximityGrid. */
 	public void addNode(Node n) {
-		int ri = (n.y() - y) / RECT_HEIGHT;
-		int rj = (n.x() - x) / RECT_WIDTH;
+		int ri = (n.y() - y) / rectHeight;
+		int rj = (n.x() - x) / rectWidth;
 
 		rs.get(ri).get(rj).add(n);
 	}
 
+	/** Remove Node n from this NodeProximityGrid. Return true iff it was in
+	 * this NodeProximityGrid. */
+	public boolean removeNode(Node n) {
+		int ri = (n.y() - y) / rectHeight;
+		int rj = (n.x() - x) / rectWidth;
+		if (ri < 0 || ri >= rows() || rj < 0 || rj >= cols()) return false;
+
+		return rs.get(ri).get(rj).remove(n);
+	}
+
 	/** Return the closest Node to p.
 	 * Precondition: this map is not empty. */
 	public Node closestNode(Point2D p) {
-		int ri= (int) (p.getY() - y) / RECT_HEIGHT;
-		int rj= (int) (p.getX() - x) / RECT_WIDTH;
+		int ri= (int) (p.getY() - y) / rectHeight;
+		int rj= (int) (p.getX() - x) / rectWidth;
 
 		if (ri >= rows())
 			ri= rows() - 1;
@@ -70,6 +70,11 @@ public class PlanetXModel implements Model, Controllable {
 		return board.seed();
 	}
 
+	@Override
+	public BoardBuildStats buildStats() {
+		return board.buildStats();
+	}
+
 	@Override
 	public Set<Node> nodes() {
 		HashSet<Node> ns = new HashSet<>();
@@ -83,6 +88,16 @@ public class PlanetXModel implements Model, Controllable {
 		return board.edges();
 	}
 
+	@Override
+	public AdjacencyArrays graph() {
+		return board.csr();
+	}
+
+	@Override
+	public DistanceOracle distances() {
+		return board.distanceOracle();
+	}
+
 	@Override
 	public Node closestNode(Point2D p) {
 		return board.closestNode(p);
@@ -229,11 +244,10 @@ public class PlanetXModel implements Model, Controllable {
 		if (failMessage != null)
 			waitUntilAbort();
 
-		for (Node n : shipNode.neighbors().keySet()) {
-			if (n.id() == id) {
-				waitUntilMoved(n);
-				return;
-			}
+		Node n= board.getNode(id);
+		if (n != null && shipNode.isConnectedTo(n)) {
+			waitUntilMoved(n);
+			return;
 		}
 		failMessage= "tried to call moveTo to a non-adjacent ID.";
 		waitUntilAbort();
@@ -318,6 +332,16 @@ public class PlanetXModel implements Model, Controllable {
 				return PlanetXModel.this.nodes();
 			}
 
+			@Override
+			public AdjacencyArrays graph() {
+				return PlanetXModel.this.graph();
+			}
+
+			@Override
+			public DistanceOracle distances() {
+				return PlanetXModel.this.distances();
+			}
+
 			@Override
 			public void moveTo(Node n) {
 				PlanetXModel.this.moveTo(n);
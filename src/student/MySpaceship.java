@@ -4,9 +4,9 @@ package student;
 
 import controllers.Spaceship;
 
+import models.DistanceOracle;
 import models.Node;
 import models.NodeStatus;
-import student.Paths.SF;
 import controllers.SearchPhase;
 
 import java.util.ArrayList;
@@ -24,9 +24,11 @@ public class MySpaceship implements Spaceship {
 	// For search. HashMap of nodes that have already been visited in the dfsWalkSearch method
 	HashMap<Integer, Integer> visited = new HashMap<Integer, Integer>();
 	
-	/* For rescue. HashMap of nodes to SF objects to find distance of the minimum path from 
-	a node to Earth */
-	HashMap<Node, SF> minPaths = new HashMap<Node, SF>();
+	/* For rescue. The distances of minimum paths between nodes, exact to and from Earth;
+	 * null if the board has none, in which case toEarth holds the distance from each node
+	 * (by id) to Earth */
+	DistanceOracle distances;
+	int[] toEarth;
 	
 	
 	/** The spaceship is on the location given by parameter state.
@@ -106,7 +108,8 @@ public class MySpaceship implements Spaceship {
 	@Override
 	public void rescue(RescuePhase state) {
 		// TODO: Complete the rescue mission and collect gems
-		minPaths = Paths.allMinPaths(state.earth());
+		distances = state.distances();
+		toEarth = distances == null ? state.graph().distancesFrom(state.earth().id()) : null;
 		moveToBestNeighbor(state);
 	}
 	
@@ -130,7 +133,7 @@ public class MySpaceship implements Spaceship {
 		ArrayList<Node> neighbors = new ArrayList<Node>();
 		for (Node n: neighborsSet) {
 			int currentToNeighbor = current.getEdge(n).length;
-			int neighborToEarth = minPaths.get(n).distance();
+			int neighborToEarth = distanceToEarth(n, state);
 			if (currentToNeighbor + neighborToEarth < state.fuelRemaining())
 				neighbors.add(n);
 		}
@@ -158,6 +161,12 @@ public class MySpaceship implements Spaceship {
 		moveToBestNeighbor(state);
 	}
 	
+	/** Return the distance of a minimum path from Node n to Earth. */
+	private int distanceToEarth(Node n, RescuePhase state) {
+		if (distances == null) return toEarth[n.id()];
+		return distances.distance(n.id(), state.earth().id());
+	}
+	
 	/** Return true if Node n1 is less than or equal to Node n2 in its worth and false otherwise. Worth is 
 	 * determined by the gem-to-fuel needed ratio, plus, as a tie breaker, the number of gems of the node
 	 * divided by the max number of gems (a constant in the PlanetX class). 
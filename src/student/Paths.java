@@ -5,6 +5,8 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
+import models.AdjacencyArrays;
+import models.Board;
 import models.Edge;
 import models.Node;
 
@@ -87,6 +89,43 @@ public class Paths {
     }
 
 
+    /** Return the shortest path on Board b from start to end ---or the empty
+     * list if a path does not exist. It searches b.csr(), which is much
+     * faster than following Nodes and Edges on a large Board. */
+    public static List<Node> minPath(Board b, Node start, Node end) {
+        List<Node> path= new LinkedList<Node>();
+        for (int id : minPath(b.csr(), start.id(), end.id()))
+            path.add(b.getNode(id));
+        return path;
+    }
+
+    /** Return the ids of the nodes on a shortest path in g from the node
+     * with id start to the node with id end ---or an empty array if a path
+     * does not exist. */
+    public static int[] minPath(AdjacencyArrays g, int start, int end) {
+        int[] backPtr= new int[g.nodeCount()];
+        int[] dist= g.distancesFrom(start, end, backPtr);
+        if (dist[end] == Integer.MAX_VALUE) return new int[0];
+
+        int k= 1; // the number of nodes on the path
+        for (int p= end; p != start; p= backPtr[p])
+            ++k;
+        int[] path= new int[k];
+        for (int p= end; k != 0; p= backPtr[p])
+            path[--k]= p;
+        return path;
+    }
+
+    /** Return the length of a shortest path in g from the node with id start
+     * to each node, by id (Integer.MAX_VALUE if there is none), and store
+     * in backPtr the id of the node before each node on that path (-1 for
+     * start and for nodes that cannot be reached).
+     * Precondition: backPtr has g.nodeCount() elements. */
+    public static int[] allMinPaths(AdjacencyArrays g, int start,
+        int[] backPtr) {
+        return g.distancesFrom(start, -1, backPtr);
+    }
+
     /** Return the path from the start node to node end.
      *  Precondition: data contains all the necessary information about
      *  the path. */
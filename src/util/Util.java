@@ -1,5 +1,7 @@
 package util;
 
+import java.util.Arrays;
+
 /** Contains various static utility functions and constants. */
 public abstract class Util {
 	public static final String EARTH_NAME= "Earth";
@@ -15,6 +17,36 @@ public abstract class Util {
 		return false;
 	}
 
+	/** Return the capacity that a HashSet or HashMap created with the
+	 * default capacity has after n elements are added to it. One created
+	 * with this capacity orders the same elements the same way. */
+	public static int hashCapacity(int n) {
+		int capacity= 16;
+		while (n > capacity * 3 / 4)
+			capacity *= 2;
+		return capacity;
+	}
+
+	/** Return 0, 1, ..., h.length - 1 in the order in which a HashSet or
+	 * HashMap created with the default capacity iterates elements with hash
+	 * codes h[0], h[1], ... added to it in that order, if n elements in all
+	 * were added to it (others may have been removed). Elements in the same
+	 * bucket keep the order they were added in, which holds unless a bucket
+	 * gets 8 or more of them. */
+	public static int[] hashOrder(int[] h, int n) {
+		int capacity= hashCapacity(n);
+		long[] keys= new long[h.length];
+		for (int i= 0; i != h.length; ++i) {
+			int bucket= (h[i] ^ (h[i] >>> 16)) & (capacity - 1);
+			keys[i]= (long) bucket << 32 | i;
+		}
+		Arrays.sort(keys);
+		int[] order= new int[h.length];
+		for (int i= 0; i != h.length; ++i)
+			order[i]= (int) keys[i];
+		return order;
+	}
+
 	/** Return the distance between (x1, x2) and (y1, y2). */
 	public static double distance(double x1, double y1, double x2, double y2) {
 		return Math.sqrt(((x2 - x1) * (x2 - x1)) + ((y2 - y1) * (y2 - y1)));
@@ -3,6 +3,7 @@ package views;
 import java.util.Random;
 
 import controllers.Controller;
+import models.BoardBuildStats;
 import models.Model;
 import models.Model.Phase;
 
@@ -20,11 +21,22 @@ public class BenchmarkView implements View {
 	private int[] scores= new int[N]; // scores for each run
 	private double[] times= new double[N]; // times for each run, in seconds
 	private long start; // time when starting the current run
+	private long[] seeds; // seeds of runs 1..N-1, drawn from R when first needed
+	private BoardBuildStats buildStats= new BoardBuildStats(); // of all runs
 
 	@Override
 	public void init(Controller c, Model m) {
 		ctrlr= c;
 		model= m;
+		if (seeds == null) {
+			// the seeds of the runs to come are known now, so their games can
+			// be built while this one runs
+			seeds= new long[N - 1];
+			for (int k= 0; k != seeds.length; ++k) {
+				seeds[k]= R.nextLong();
+				c.pregenerate(seeds[k]);
+			}
+		}
 		thread= new ViewThread(c, m);
 		thread.run();
 	}
@@ -43,6 +55,7 @@ public class BenchmarkView implements View {
 		thread.running= false;
 		times[i]= toSeconds(System.nanoTime() - start);
 		scores[i]= score;
+		buildStats.add(model.buildStats());
 		outprintln("Finished run " + i + " with seed " + model.seed() + ", score "
 			+ score + ", and time " + times[i]);
 		++i;
@@ -51,8 +64,11 @@ public class BenchmarkView implements View {
 			scoreStats();
 			outprintln("");
 			timeStats();
+			outprintln("");
+			outprintln("Board build stages (mean per Board):");
+			outprint(buildStats.toString());
 		} else {
-			ctrlr.newGame(Long.toString(R.nextLong()));
+			ctrlr.newGame(seeds[i - 1]);
 		}
 	}
 